@@ -0,0 +1,225 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.autoconfigure.web.HttpMessageConverters;
+import org.springframework.cloud.netflix.feign.SpringDecoder;
+import org.springframework.cloud.netflix.feign.SpringEncoder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.client.HttpMessageConverterExtractor;
+
+import feign.RequestTemplate;
+import feign.Response;
+
+/**
+ * Encoding and decoding of a small JSON payload with the Spring Cloud Feign codecs,
+ * compared with the same work done the way they did it before they cached the choice of
+ * converter (a scan of all the converters for every message).
+ *
+ * @author Dave Syer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeignCodecBenchmark {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final byte[] JSON = "{\"id\":\"123\",\"name\":\"Store\",\"open\":true}"
+			.getBytes(UTF_8);
+
+	private HttpMessageConverters converters;
+
+	private SpringEncoder encoder;
+
+	private SpringDecoder decoder;
+
+	private Map<String, Collection<String>> headers;
+
+	private Store store = new Store("123", "Store", true);
+
+	@Setup
+	public void setup() {
+		this.converters = new HttpMessageConverters();
+		this.encoder = new SpringEncoder(this.converters);
+		this.decoder = new SpringDecoder(this.converters);
+		this.headers = new LinkedHashMap<String, Collection<String>>();
+		this.headers.put("Content-Type",
+				Collections.singletonList(MediaType.APPLICATION_JSON_VALUE));
+		this.headers.put("Content-Length", Collections.singletonList("" + JSON.length));
+	}
+
+	@Benchmark
+	public RequestTemplate encode() {
+		RequestTemplate request = new RequestTemplate().header("Content-Type",
+				MediaType.APPLICATION_JSON_VALUE);
+		this.encoder.encode(this.store, request);
+		return request;
+	}
+
+	@Benchmark
+	public RequestTemplate encodeScanningConverters() throws IOException {
+		RequestTemplate request = new RequestTemplate().header("Content-Type",
+				MediaType.APPLICATION_JSON_VALUE);
+		for (HttpMessageConverter<?> converter : this.converters.getConverters()) {
+			if (converter.canWrite(Store.class, MediaType.APPLICATION_JSON)) {
+				final ByteArrayOutputStream body = new ByteArrayOutputStream();
+				@SuppressWarnings("unchecked")
+				HttpMessageConverter<Object> copy = (HttpMessageConverter<Object>) converter;
+				copy.write(this.store, MediaType.APPLICATION_JSON, new HttpOutputMessage() {
+					@Override
+					public OutputStream getBody() throws IOException {
+						return body;
+					}
+
+					@Override
+					public HttpHeaders getHeaders() {
+						return new HttpHeaders();
+					}
+				});
+				request.body(body.toByteArray(), UTF_8);
+				break;
+			}
+		}
+		return request;
+	}
+
+	@Benchmark
+	public Object decode() throws IOException {
+		return this.decoder.decode(response(), Store.class);
+	}
+
+	@Benchmark
+	public Object decodeScanningConverters() throws IOException {
+		final Response response = response();
+		HttpMessageConverterExtractor<Store> extractor = new HttpMessageConverterExtractor<Store>(
+				Store.class, this.converters.getConverters());
+		return extractor.extractData(new ClientHttpResponse() {
+			@Override
+			public HttpStatus getStatusCode() throws IOException {
+				return HttpStatus.valueOf(response.status());
+			}
+
+			@Override
+			public int getRawStatusCode() throws IOException {
+				return response.status();
+			}
+
+			@Override
+			public String getStatusText() throws IOException {
+				return response.reason();
+			}
+
+			@Override
+			public void close() {
+			}
+
+			@Override
+			public InputStream getBody() throws IOException {
+				return response.body().asInputStream();
+			}
+
+			@Override
+			public HttpHeaders getHeaders() {
+				HttpHeaders headers = new HttpHeaders();
+				for (Map.Entry<String, Collection<String>> entry : response.headers()
+						.entrySet()) {
+					headers.put(entry.getKey(),
+							new ArrayList<String>(entry.getValue()));
+				}
+				return headers;
+			}
+		});
+	}
+
+	private Response response() {
+		return Response.create(200, "OK", this.headers, JSON);
+	}
+
+	public static class Store {
+
+		private String id;
+
+		private String name;
+
+		private boolean open;
+
+		public Store() {
+		}
+
+		public Store(String id, String name, boolean open) {
+			this.id = id;
+			this.name = name;
+			this.open = open;
+		}
+
+		public String getId() {
+			return this.id;
+		}
+
+		public void setId(String id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public boolean isOpen() {
+			return this.open;
+		}
+
+		public void setOpen(boolean open) {
+			this.open = open;
+		}
+
+	}
+
+}
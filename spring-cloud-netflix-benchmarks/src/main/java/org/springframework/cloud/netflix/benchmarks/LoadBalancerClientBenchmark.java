@@ -0,0 +1,160 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerRequest;
+import org.springframework.cloud.netflix.ribbon.RibbonLoadBalancerClient;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.MyDataCenterInfo;
+import com.netflix.appinfo.DataCenterInfo.Name;
+import com.netflix.client.IClientConfigAware;
+import com.netflix.client.config.IClientConfig;
+import com.netflix.config.ConfigurationManager;
+import com.netflix.config.DeploymentContext.ContextKey;
+import com.netflix.loadbalancer.DynamicServerListLoadBalancer;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerList;
+import com.netflix.niws.loadbalancer.DiscoveryEnabledServer;
+
+/**
+ * Server selection and request execution through the {@link RibbonLoadBalancerClient},
+ * with the load balancer created by {@link SpringClientFactory} in the same way as in an
+ * application: a <code>ZoneAwareLoadBalancer</code> with the
+ * <code>ZonePreferenceServerListFilter</code> and the <code>DomainExtractingServerList</code>
+ * wrapping a list of Eureka servers in 3 zones. Run with different thread counts (e.g.
+ * <code>-t 1</code> and <code>-t 4</code>) to look for contention.
+ *
+ * @author Dave Syer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadBalancerClientBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	public int servers;
+
+	private String serviceId;
+
+	private SpringClientFactory factory;
+
+	private RibbonLoadBalancerClient client;
+
+	private LoadBalancerRequest<Integer> request = new LoadBalancerRequest<Integer>() {
+		@Override
+		public Integer apply(ServiceInstance instance) throws Exception {
+			return instance.getPort();
+		}
+	};
+
+	@Setup
+	public void setup() {
+		this.serviceId = "benchmark" + this.servers;
+		configure(this.serviceId, this.servers);
+		this.factory = new SpringClientFactory();
+		this.client = new RibbonLoadBalancerClient(this.factory);
+		// Make sure the server list has been through the DomainExtractingServerList
+		((DynamicServerListLoadBalancer<?>) this.factory.getLoadBalancer(this.serviceId))
+				.updateListOfServers();
+	}
+
+	@TearDown
+	public void close() {
+		this.factory.destroy();
+	}
+
+	@Benchmark
+	public ServiceInstance choose() {
+		return this.client.choose(this.serviceId);
+	}
+
+	@Benchmark
+	public Integer execute() {
+		return this.client.execute(this.serviceId, this.request);
+	}
+
+	static void configure(String serviceId, int servers) {
+		ConfigurationManager.getDeploymentContext().setValue(ContextKey.zone, "zone0");
+		ConfigurationManager.getConfigInstance().setProperty(
+				serviceId + ".ribbon.NIWSServerListClassName",
+				StaticServerList.class.getName());
+		ConfigurationManager.getConfigInstance().setProperty(
+				serviceId + ".ribbon." + StaticServerList.SERVERS, servers);
+	}
+
+	/**
+	 * A fixed list of Eureka servers, as if they came from the registry. The number of
+	 * servers is configured with <code>&lt;client&gt;.ribbon.BenchmarkServers</code>.
+	 */
+	public static class StaticServerList implements ServerList<Server>,
+			IClientConfigAware {
+
+		static final String SERVERS = "BenchmarkServers";
+
+		private List<Server> servers = new ArrayList<Server>();
+
+		@Override
+		public void initWithNiwsConfig(IClientConfig config) {
+			int count = ConfigurationManager.getConfigInstance().getInt(
+					config.getClientName() + ".ribbon." + SERVERS, 10);
+			for (int i = 0; i < count; i++) {
+				InstanceInfo instance = InstanceInfo.Builder.newBuilder()
+						.setAppName(config.getClientName()).setHostName("host" + i)
+						.setIPAddr("10.0.0." + i).setPort(8080)
+						.setDataCenterInfo(new MyDataCenterInfo(Name.MyOwn)).build();
+				DiscoveryEnabledServer server = new DiscoveryEnabledServer(instance,
+						false);
+				server.setZone("zone" + (i % 3));
+				server.setAlive(true);
+				this.servers.add(server);
+			}
+		}
+
+		@Override
+		public List<Server> getInitialListOfServers() {
+			return this.servers;
+		}
+
+		@Override
+		public List<Server> getUpdatedListOfServers() {
+			return this.servers;
+		}
+
+	}
+
+}
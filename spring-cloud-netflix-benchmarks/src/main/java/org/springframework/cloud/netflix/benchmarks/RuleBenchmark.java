@@ -0,0 +1,111 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+
+import com.netflix.client.config.DefaultClientConfigImpl;
+import com.netflix.client.config.IClientConfigAware;
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.IRule;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerStats;
+
+/**
+ * Server selection with the built in Ribbon rules and the ones in Spring Cloud, for
+ * different sizes of server list.
+ *
+ * @author Dave Syer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	public int servers;
+
+	@Param({ "com.netflix.loadbalancer.RoundRobinRule",
+			"com.netflix.loadbalancer.ZoneAvoidanceRule",
+			"com.netflix.loadbalancer.AvailabilityFilteringRule",
+			"com.netflix.loadbalancer.WeightedResponseTimeRule",
+			"org.springframework.cloud.netflix.ribbon.PowerOfTwoChoicesRule",
+			"org.springframework.cloud.netflix.ribbon.PeakEwmaRule" })
+	public String rule;
+
+	private BaseLoadBalancer loadBalancer;
+
+	@Setup
+	public void setup() throws Exception {
+		DefaultClientConfigImpl config = new DefaultClientConfigImpl();
+		config.loadProperties("benchmark");
+		IRule instance = (IRule) BeanUtils.instantiate(ClassUtils.forName(this.rule,
+				null));
+		if (instance instanceof IClientConfigAware) {
+			((IClientConfigAware) instance).initWithNiwsConfig(config);
+		}
+		this.loadBalancer = new BaseLoadBalancer();
+		this.loadBalancer.setRule(instance);
+		this.loadBalancer.addServers(createServers(this.servers));
+		// Simulate some in-flight requests and response times
+		Random random = new Random(0);
+		for (Server server : this.loadBalancer.getAllServers()) {
+			ServerStats stats = this.loadBalancer.getLoadBalancerStats()
+					.getSingleServerStat(server);
+			for (int i = random.nextInt(5); i > 0; i--) {
+				stats.incrementActiveRequestsCount();
+			}
+			stats.noteResponseTime(10 + random.nextInt(100));
+		}
+	}
+
+	@Benchmark
+	public Server choose() {
+		return this.loadBalancer.chooseServer("default");
+	}
+
+	static List<Server> createServers(int count) {
+		List<Server> list = new ArrayList<Server>();
+		for (int i = 0; i < count; i++) {
+			Server server = new Server("host" + i, 8080);
+			server.setAlive(true);
+			server.setZone("zone" + (i % 3));
+			list.add(server);
+		}
+		return list;
+	}
+
+}
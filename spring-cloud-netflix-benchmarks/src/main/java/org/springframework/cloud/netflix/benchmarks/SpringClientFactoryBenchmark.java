@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.netflix.ribbon.RibbonLoadBalancerContext;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+
+import com.netflix.loadbalancer.ILoadBalancer;
+
+/**
+ * Lookups of existing clients in the {@link SpringClientFactory}, which happen on every
+ * request, with and without an ApplicationContext per client.
+ *
+ * @author Dave Syer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpringClientFactoryBenchmark {
+
+	@Param({ "1", "100" })
+	public int clients;
+
+	@Param({ "false", "true" })
+	public boolean lightweight;
+
+	private SpringClientFactory factory;
+
+	private String[] names;
+
+	@Setup
+	public void setup() {
+		this.factory = new SpringClientFactory();
+		this.factory.setLightweight(this.lightweight);
+		this.names = new String[this.clients];
+		for (int i = 0; i < this.clients; i++) {
+			this.names[i] = "lookup" + i;
+			LoadBalancerClientBenchmark.configure(this.names[i], 10);
+			this.factory.getLoadBalancer(this.names[i]);
+		}
+	}
+
+	@TearDown
+	public void close() {
+		this.factory.destroy();
+	}
+
+	@Benchmark
+	public ILoadBalancer getLoadBalancer(Cursor cursor) {
+		return this.factory.getLoadBalancer(cursor.next(this.names));
+	}
+
+	@Benchmark
+	public RibbonLoadBalancerContext getLoadBalancerContext(Cursor cursor) {
+		return this.factory.getLoadBalancerContext(cursor.next(this.names));
+	}
+
+	/**
+	 * Position in the list of names for each thread, so the threads only contend in the
+	 * factory.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+
+		private int index;
+
+		String next(String[] names) {
+			this.index = this.index + 1 < names.length ? this.index + 1 : 0;
+			return names[this.index];
+		}
+
+	}
+
+}
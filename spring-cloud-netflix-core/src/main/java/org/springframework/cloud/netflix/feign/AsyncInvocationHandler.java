@@ -0,0 +1,375 @@
+package org.springframework.cloud.netflix.feign;
+
+import static feign.Util.checkArgument;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.AsyncClientHttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import rx.Observable;
+import rx.Observable.OnSubscribe;
+import rx.Subscriber;
+import rx.functions.Action0;
+import rx.subscriptions.Subscriptions;
+
+import feign.Contract;
+import feign.Feign;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.Target;
+import feign.codec.DecodeException;
+import feign.codec.Decoder;
+import feign.codec.EncodeException;
+import feign.codec.Encoder;
+import feign.codec.ErrorDecoder;
+
+/**
+ * Sends the requests of the methods of a Feign client that return a {@link Future},
+ * {@link ListenableFuture} or {@link Observable} with a non-blocking
+ * {@link AsyncClientHttpRequestFactory}, so no thread waits for the response. Feign is
+ * only used to build the request from the arguments (with the {@link Contract} and
+ * {@link Encoder}) and to decode the response (with the {@link Decoder} and
+ * {@link ErrorDecoder}), which happens on the thread that completes the response.
+ * Responses are decoded to the type wrapped by the async return type. Other methods are
+ * passed straight through to Feign.
+ *
+ * @author Dave Syer
+ */
+class AsyncInvocationHandler implements InvocationHandler {
+
+    private static final boolean RX_PRESENT = ClassUtils.isPresent("rx.Observable",
+            AsyncInvocationHandler.class.getClassLoader());
+
+    private final Object target;
+
+    private final InvocationHandler delegate;
+
+    private final Target<?> url;
+
+    private final AsyncClientHttpRequestFactory requestFactory;
+
+    private final CompressingClient compression;
+
+    private final Encoder encoder;
+
+    private final Decoder decoder;
+
+    private final ErrorDecoder errorDecoder;
+
+    private final Map<Method, MethodMetadata> metadata = new HashMap<>();
+
+    private final Map<Method, Type> decodedTypes = new HashMap<>();
+
+    private AsyncInvocationHandler(Class<?> type, Object target, String url,
+            AsyncClientHttpRequestFactory requestFactory, CompressingClient compression,
+            Contract contract, Encoder encoder, Decoder decoder, ErrorDecoder errorDecoder) {
+        this.target = target;
+        this.delegate = Proxy.getInvocationHandler(target);
+        this.url = new Target.HardCodedTarget<>(type, url);
+        this.requestFactory = requestFactory;
+        this.compression = compression;
+        this.encoder = encoder;
+        this.decoder = decoder;
+        this.errorDecoder = errorDecoder != null ? errorDecoder : new ErrorDecoder.Default();
+        Map<String, MethodMetadata> byConfigKey = new HashMap<>();
+        for (MethodMetadata data : contract.parseAndValidatateMetadata(type)) {
+            byConfigKey.put(data.configKey(), data);
+        }
+        for (Method method : type.getMethods()) {
+            if (isAsync(method.getReturnType())) {
+                this.metadata.put(method, byConfigKey.get(Feign.configKey(method)));
+                this.decodedTypes.put(method, getDecodedType(method));
+            }
+        }
+    }
+
+    /**
+     * Wrap the Feign client if it has any asynchronous methods, otherwise return it
+     * unchanged.
+     *
+     * @param url the URL of the client (with the service id as the host if the request
+     * factory is load balanced)
+     * @throws IllegalStateException if there are asynchronous methods but no request
+     * factory
+     */
+    static <T> T wrap(Class<T> type, T target, String url,
+            AsyncClientHttpRequestFactory requestFactory, CompressingClient compression,
+            Contract contract, Encoder encoder, Decoder decoder, ErrorDecoder errorDecoder) {
+        boolean async = false;
+        for (Method method : type.getMethods()) {
+            if (isAsync(method.getReturnType())) {
+                async = true;
+                break;
+            }
+        }
+        if (!async || !Proxy.isProxyClass(target.getClass())) {
+            return target;
+        }
+        if (requestFactory == null) {
+            throw new IllegalStateException("No non-blocking request factory available for asynchronous methods of Feign client "
+                    + type.getName() + " (is httpasyncclient on the classpath?)");
+        }
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(),
+                new Class<?>[] { type }, new AsyncInvocationHandler(type, target, url,
+                        requestFactory, compression, contract, encoder, decoder,
+                        errorDecoder)));
+    }
+
+    static boolean isAsync(Class<?> type) {
+        return type == Future.class || type == ListenableFuture.class
+                || (RX_PRESENT && type == Observable.class);
+    }
+
+    /**
+     * The type that a response should be decoded to for an asynchronous method, i.e. the
+     * value type of its return type.
+     */
+    private static Type getDecodedType(Method method) {
+        Type type = method.getGenericReturnType();
+        if (!(type instanceof ParameterizedType)) {
+            return Object.class;
+        }
+        Type value = ((ParameterizedType) type).getActualTypeArguments()[0];
+        if (value instanceof WildcardType) {
+            value = ((WildcardType) value).getUpperBounds()[0];
+        }
+        // Feign skips decoding for void methods
+        return value == Void.class ? void.class : value;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if ("equals".equals(method.getName()) && method.getParameterTypes().length == 1) {
+            Object other = args[0];
+            return other != null && Proxy.isProxyClass(other.getClass())
+                    && Proxy.getInvocationHandler(other) == this;
+        }
+        if ("hashCode".equals(method.getName()) && method.getParameterTypes().length == 0) {
+            return this.delegate.hashCode();
+        }
+        if ("toString".equals(method.getName()) && method.getParameterTypes().length == 0) {
+            return this.delegate.toString();
+        }
+        Class<?> returnType = method.getReturnType();
+        if (!isAsync(returnType)) {
+            return this.delegate.invoke(this.target, method, args);
+        }
+        if (returnType == Future.class || returnType == ListenableFuture.class) {
+            return send(method, args);
+        }
+        return ObservableAdapter.create(this, method, args);
+    }
+
+    private ListenableFuture<Object> send(Method method, Object[] args) {
+        final MethodMetadata data = this.metadata.get(method);
+        final Type type = this.decodedTypes.get(method);
+        final ResponseFuture result = new ResponseFuture();
+        try {
+            RequestTemplate template = create(data, args);
+            this.compression.apply(template);
+            Request request = this.url.apply(template);
+            AsyncClientHttpRequest http = this.requestFactory.createAsyncRequest(
+                    URI.create(request.url()), HttpMethod.valueOf(request.method()));
+            for (Map.Entry<String, Collection<String>> header : request.headers().entrySet()) {
+                // The request factory works out the length of the body itself
+                if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(header.getKey())) {
+                    http.getHeaders().put(header.getKey(), new ArrayList<>(header.getValue()));
+                }
+            }
+            if (request.body() != null) {
+                StreamUtils.copy(request.body(), http.getBody());
+            }
+            result.response = http.executeAsync();
+            if (result.isCancelled()) {
+                result.response.cancel(true);
+            }
+            result.response.addCallback(new ListenableFutureCallback<ClientHttpResponse>() {
+                @Override
+                public void onSuccess(ClientHttpResponse response) {
+                    try {
+                        result.set(decode(data, type, response));
+                    }
+                    catch (Throwable e) {
+                        result.setException(e);
+                    }
+                    finally {
+                        response.close();
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    result.setException(e);
+                }
+            });
+        }
+        catch (Throwable e) {
+            // Errors are reported through the future, like the ones from the server
+            result.setException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Resolve the request template of the method with the arguments, in the same way as
+     * the Feign handler of a synchronous method.
+     */
+    private RequestTemplate create(MethodMetadata data, Object[] args) {
+        RequestTemplate template = new RequestTemplate(data.template());
+        if (data.urlIndex() != null) {
+            int urlIndex = data.urlIndex();
+            checkArgument(args[urlIndex] != null, "URI parameter %s was null", urlIndex);
+            template.insert(0, String.valueOf(args[urlIndex]));
+        }
+        Map<String, Object> variables = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Collection<String>> entry : data.indexToName().entrySet()) {
+            Object value = args[entry.getKey()];
+            // Null values are skipped
+            if (value != null) {
+                for (String name : entry.getValue()) {
+                    variables.put(name, value);
+                }
+            }
+        }
+        try {
+            if (!data.formParams().isEmpty() && data.template().bodyTemplate() == null) {
+                Map<String, Object> form = new LinkedHashMap<>();
+                for (Map.Entry<String, Object> entry : variables.entrySet()) {
+                    if (data.formParams().contains(entry.getKey())) {
+                        form.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                this.encoder.encode(form, template);
+            }
+            else if (data.bodyIndex() != null) {
+                Object body = args[data.bodyIndex()];
+                checkArgument(body != null, "Body parameter %s was null", data.bodyIndex());
+                this.encoder.encode(body, template);
+            }
+        }
+        catch (EncodeException e) {
+            throw e;
+        }
+        catch (RuntimeException e) {
+            throw new EncodeException(e.getMessage(), e);
+        }
+        return template.resolve(variables);
+    }
+
+    private Object decode(MethodMetadata data, Type type, ClientHttpResponse http)
+            throws Throwable {
+        Map<String, Collection<String>> headers = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> header : http.getHeaders().entrySet()) {
+            headers.put(header.getKey(), header.getValue());
+        }
+        // The non-blocking client has already read the whole body
+        byte[] body = StreamUtils.copyToByteArray(http.getBody());
+        Response response = this.compression.decompress(Response.create(
+                http.getRawStatusCode(), http.getStatusText(), headers,
+                new ByteArrayInputStream(body), body.length));
+        if (response.status() < 200 || response.status() >= 300) {
+            throw this.errorDecoder.decode(data.configKey(), response);
+        }
+        if (type == Response.class) {
+            return response;
+        }
+        if (type == void.class) {
+            return null;
+        }
+        try {
+            return this.decoder.decode(response, type);
+        }
+        catch (IOException e) {
+            throw e;
+        }
+        catch (RuntimeException e) {
+            throw new DecodeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The result of a method, which cancels the request when it is cancelled.
+     */
+    private static class ResponseFuture extends SettableListenableFuture<Object> {
+
+        private volatile ListenableFuture<ClientHttpResponse> response;
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            ListenableFuture<ClientHttpResponse> response = this.response;
+            if (cancelled && response != null) {
+                response.cancel(mayInterruptIfRunning);
+            }
+            return cancelled;
+        }
+
+    }
+
+    /**
+     * Keeps the rx classes out of the handler, since rxjava is optional.
+     */
+    private static class ObservableAdapter {
+
+        static Observable<Object> create(final AsyncInvocationHandler handler,
+                final Method method, final Object[] args) {
+            // Nothing is sent until there is a subscriber
+            return Observable.create(new OnSubscribe<Object>() {
+                @Override
+                public void call(final Subscriber<? super Object> subscriber) {
+                    final ListenableFuture<Object> future = handler.send(method, args);
+                    subscriber.add(Subscriptions.create(new Action0() {
+                        @Override
+                        public void call() {
+                            future.cancel(true);
+                        }
+                    }));
+                    future.addCallback(new ListenableFutureCallback<Object>() {
+                        @Override
+                        public void onSuccess(Object result) {
+                            if (!subscriber.isUnsubscribed()) {
+                                subscriber.onNext(result);
+                                subscriber.onCompleted();
+                            }
+                        }
+
+                        @Override
+                        public void onFailure(Throwable e) {
+                            if (!subscriber.isUnsubscribed()) {
+                                subscriber.onError(e);
+                            }
+                        }
+                    });
+                }
+            });
+        }
+
+    }
+
+}
@@ -0,0 +1,243 @@
+package org.springframework.cloud.netflix.feign;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+
+import com.netflix.config.DynamicPropertyFactory;
+import com.netflix.config.DynamicStringProperty;
+
+import dagger.Lazy;
+import feign.Client;
+import feign.Request;
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import feign.Response;
+
+/**
+ * A {@link Client} that passes the requests on to another client, and a
+ * {@link RequestInterceptor} that gzips request bodies above a minimum size and asks for
+ * compressed responses (register the same instance as both). Compressed responses are
+ * decompressed by the client, so the decoders (including the
+ * {@link feign.codec.ErrorDecoder}) and methods returning a {@link Response} see the
+ * plain body. There is one instance for each client, and the settings are dynamic, and
+ * can be set for all clients or for each client by name (the service id, or host for
+ * clients that are not load balanced):
+ *
+ * <ul>
+ * <li><code>feign.compression[.&lt;client&gt;].request.enabled</code> (default false)</li>
+ * <li><code>feign.compression[.&lt;client&gt;].request.minRequestSize</code> (bytes,
+ * default 2048)</li>
+ * <li><code>feign.compression[.&lt;client&gt;].response.enabled</code> (default false)</li>
+ * </ul>
+ *
+ * @author Dave Syer
+ */
+public class CompressingClient implements Client, RequestInterceptor {
+
+    static final String CONTENT_ENCODING = "Content-Encoding";
+
+    static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+    private static final String CONTENT_LENGTH = "Content-Length";
+
+    private static final String GZIP = "gzip";
+
+    private final Client delegate;
+
+    private final Settings settings;
+
+    /**
+     * Create a client that sends the requests with the default Feign client.
+     *
+     * @param name the name of the client the settings are looked up with
+     */
+    public CompressingClient(String name) {
+        this(new Default(new Lazy<SSLSocketFactory>() {
+            @Override
+            public SSLSocketFactory get() {
+                return (SSLSocketFactory) SSLSocketFactory.getDefault();
+            }
+        }, new Lazy<HostnameVerifier>() {
+            @Override
+            public HostnameVerifier get() {
+                return HttpsURLConnection.getDefaultHostnameVerifier();
+            }
+        }), name);
+    }
+
+    /**
+     * Create a client that sends the requests with another client. The name is passed
+     * in, since a load balancing client or target may already have replaced the service
+     * id in the request URL with a server.
+     *
+     * @param delegate the client that sends the requests
+     * @param name the name of the client the settings are looked up with
+     */
+    public CompressingClient(Client delegate, String name) {
+        this.delegate = delegate;
+        this.settings = new Settings(name != null ? name : "default");
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        return decompress(delegate.execute(request, options));
+    }
+
+    /**
+     * Apply the compression settings to a request before it is sent, leaving it
+     * unchanged if there is nothing to do.
+     */
+    @Override
+    public void apply(RequestTemplate template) {
+        byte[] body = template.body();
+        boolean compress = body != null && settings.isRequestEnabled()
+                && body.length >= settings.getMinRequestSize()
+                && !hasHeader(template.headers(), CONTENT_ENCODING);
+        boolean accept = settings.isResponseEnabled()
+                && !hasHeader(template.headers(), ACCEPT_ENCODING);
+        if (!compress && !accept) {
+            return;
+        }
+        Map<String, Collection<String>> headers = new LinkedHashMap<>(template.headers());
+        if (compress) {
+            // The length of the compressed body is set with the body
+            removeHeader(headers, CONTENT_LENGTH);
+            headers.put(CONTENT_ENCODING, Collections.singletonList(GZIP));
+        }
+        if (accept) {
+            headers.put(ACCEPT_ENCODING, Collections.singletonList(GZIP));
+        }
+        template.headers(headers);
+        if (compress) {
+            template.body(gzip(body), template.charset());
+        }
+    }
+
+    /**
+     * Decompress a gzipped response as it is read, describing the plain body in the
+     * headers. Other responses are returned unchanged.
+     */
+    Response decompress(Response response) throws IOException {
+        if (!isGzip(response.headers())) {
+            return response;
+        }
+        Map<String, Collection<String>> headers = new LinkedHashMap<>(response.headers());
+        removeHeader(headers, CONTENT_ENCODING);
+        removeHeader(headers, CONTENT_LENGTH);
+        Response.Body body = response.body();
+        InputStream stream = null;
+        // An empty body (e.g. for a HEAD request) has no gzip header to read
+        if (body != null && (body.length() == null || body.length() > 0)) {
+            stream = new GZIPInputStream(body.asInputStream());
+        }
+        return Response.create(response.status(), response.reason(), headers, stream, null);
+    }
+
+    private static boolean isGzip(Map<String, Collection<String>> headers) {
+        for (Map.Entry<String, Collection<String>> header : headers.entrySet()) {
+            if (CONTENT_ENCODING.equalsIgnoreCase(header.getKey())) {
+                for (String value : header.getValue()) {
+                    if (GZIP.equalsIgnoreCase(value.trim())
+                            || "x-gzip".equalsIgnoreCase(value.trim())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4 + 64);
+        try {
+            GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+            try {
+                gzip.write(body);
+            }
+            finally {
+                gzip.close();
+            }
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Cannot compress request body", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static boolean hasHeader(Map<String, Collection<String>> headers, String name) {
+        for (String key : headers.keySet()) {
+            if (name.equalsIgnoreCase(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void removeHeader(Map<String, Collection<String>> headers, String name) {
+        for (Iterator<String> keys = headers.keySet().iterator(); keys.hasNext();) {
+            if (name.equalsIgnoreCase(keys.next())) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * The settings for one client, falling back to the ones for all clients.
+     */
+    private static class Settings {
+
+        private final DynamicStringProperty requestEnabled;
+
+        private final DynamicStringProperty defaultRequestEnabled;
+
+        private final DynamicStringProperty minRequestSize;
+
+        private final DynamicStringProperty defaultMinRequestSize;
+
+        private final DynamicStringProperty responseEnabled;
+
+        private final DynamicStringProperty defaultResponseEnabled;
+
+        Settings(String name) {
+            DynamicPropertyFactory properties = DynamicPropertyFactory.getInstance();
+            String prefix = "feign.compression.";
+            requestEnabled = properties.getStringProperty(prefix + name + ".request.enabled", null);
+            defaultRequestEnabled = properties.getStringProperty(prefix + "request.enabled", "false");
+            minRequestSize = properties.getStringProperty(prefix + name + ".request.minRequestSize", null);
+            defaultMinRequestSize = properties.getStringProperty(prefix + "request.minRequestSize", "2048");
+            responseEnabled = properties.getStringProperty(prefix + name + ".response.enabled", null);
+            defaultResponseEnabled = properties.getStringProperty(prefix + "response.enabled", "false");
+        }
+
+        boolean isRequestEnabled() {
+            return Boolean.valueOf(get(requestEnabled, defaultRequestEnabled).trim());
+        }
+
+        int getMinRequestSize() {
+            return Integer.parseInt(get(minRequestSize, defaultMinRequestSize).trim());
+        }
+
+        boolean isResponseEnabled() {
+            return Boolean.valueOf(get(responseEnabled, defaultResponseEnabled).trim());
+        }
+
+        private static String get(DynamicStringProperty value, DynamicStringProperty fallback) {
+            String result = value.get();
+            return result != null ? result : fallback.get();
+        }
+
+    }
+
+}
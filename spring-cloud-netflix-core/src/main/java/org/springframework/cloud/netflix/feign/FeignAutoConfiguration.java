@@ -4,10 +4,16 @@ import feign.Client;
 import feign.Contract;
 import feign.Feign;
 import feign.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.cloud.netflix.feign.ribbon.RibbonLoadBalancerClient;
+import org.springframework.cloud.netflix.feign.ribbon.FeignDelegateFactory;
 import org.springframework.cloud.netflix.feign.ribbon.FeignRibbonClient;
+import org.springframework.cloud.netflix.feign.ribbon.PooledHttpClientFactory;
+import org.springframework.cloud.netflix.ribbon.RibbonAutoConfiguration;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.cloud.netflix.archaius.ArchaiusAutoConfiguration;
@@ -20,8 +26,15 @@ import com.netflix.loadbalancer.ILoadBalancer;
  */
 @Configuration
 @ConditionalOnClass(Feign.class)
-@AutoConfigureAfter(ArchaiusAutoConfiguration.class)
+@AutoConfigureAfter({ ArchaiusAutoConfiguration.class, RibbonAutoConfiguration.class })
 public class FeignAutoConfiguration {
+
+    @Autowired(required = false)
+    private SpringClientFactory clientFactory;
+
+    @Autowired(required = false)
+    private FeignDelegateFactory delegateFactory;
+
     @Bean
     SpringDecoder feignDecoder() {
         return new SpringDecoder();
@@ -45,5 +58,23 @@ public class FeignAutoConfiguration {
 
     @Bean
     @ConditionalOnClass(ILoadBalancer.class)
-    public Client feignRibbonClient() { return new RibbonLoadBalancerClient(); }
+    public Client feignRibbonClient() {
+        RibbonLoadBalancerClient client = new RibbonLoadBalancerClient(clientFactory);
+        if (delegateFactory != null) {
+            client.setDelegateFactory(delegateFactory);
+        }
+        return client;
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "org.apache.http.impl.conn.PoolingHttpClientConnectionManager")
+    @ConditionalOnExpression("${feign.httpclient.enabled:true}")
+    protected static class FeignHttpClientConfiguration {
+
+        @Bean
+        public PooledHttpClientFactory feignHttpClientFactory() {
+            return new PooledHttpClientFactory();
+        }
+
+    }
 }
@@ -15,4 +15,16 @@ public @interface FeignClient {
 	 */
 	String value();
 	boolean loadbalance() default true;
+
+	/**
+	 * @return true to run each method in a Hystrix command, with the serviceId (or
+	 * host) as the command group
+	 */
+	boolean hystrix() default false;
+
+	/**
+	 * @return the type of a bean implementing this interface to call when a Hystrix
+	 * command fails (only used if hystrix is true)
+	 */
+	Class<?> fallback() default void.class;
 }
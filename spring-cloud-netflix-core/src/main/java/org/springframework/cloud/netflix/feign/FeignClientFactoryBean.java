@@ -1,20 +1,31 @@
 package org.springframework.cloud.netflix.feign;
 
+import java.lang.reflect.Method;
+import java.net.URI;
+
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 import org.springframework.beans.factory.FactoryBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.util.Assert;
+
+import feign.codec.ErrorDecoder;
 
 /**
 * @author Spencer Gibb
 */
 @Data
 @EqualsAndHashCode(callSuper=false)
-class FeignClientFactoryBean extends FeignConfiguration implements FactoryBean<Object> {
+class FeignClientFactoryBean extends FeignConfiguration implements FactoryBean<Object>, ApplicationContextAware {
 
 	private boolean loadbalance;
 	private Class<?> type;
 	private String schemeName;
+	private boolean hystrix;
+	private Class<?> fallback;
+	private ApplicationContext applicationContext;
 
 	@Override
 	public Object getObject() throws Exception {
@@ -24,7 +35,44 @@ class FeignClientFactoryBean extends FeignConfiguration implements FactoryBean<O
 		if (loadbalance) {
 			return loadBalance(type, schemeName);
 		}
-		return feign().target(type, schemeName);
+		return target(type, schemeName);
+	}
+
+	private <T> T target(Class<T> type, String url) {
+		// Compression is set up for each client, named after the host
+		return async(type, compress(feign(), new CompressingClient(URI.create(url).getHost()))
+				.target(type, url), url, false);
+	}
+
+	@Override
+	protected <T> T async(Class<T> type, T client, String url, boolean loadBalanced) {
+		if (!hystrix) {
+			for (Method method : type.getMethods()) {
+				Assert.state(!method.isAnnotationPresent(FeignCollapser.class),
+						"@FeignCollapser needs hystrix=true on @FeignClient for " + type.getName());
+			}
+			return super.async(type, client, url, loadBalanced);
+		}
+		// The commands of the async methods wrap the non-blocking requests
+		return hystrix(type, super.async(type, client, url, loadBalanced),
+				URI.create(schemeName).getHost(), fallback(type));
+	}
+
+	@Override
+	protected ErrorDecoder errorDecoder() {
+		if (!hystrix) {
+			return super.errorDecoder();
+		}
+		return HystrixInvocationHandler.badRequests(super.errorDecoder());
+	}
+
+	private <T> T fallback(Class<T> type) {
+		if (fallback == null) {
+			return null;
+		}
+		Assert.isTrue(type.isAssignableFrom(fallback) && !type.equals(fallback),
+				"Fallback " + fallback.getName() + " must implement " + type.getName());
+		return type.cast(applicationContext.getBean(fallback));
 	}
 
 	@Override
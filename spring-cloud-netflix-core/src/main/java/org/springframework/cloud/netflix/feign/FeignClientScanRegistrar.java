@@ -1,10 +1,21 @@
 package org.springframework.cloud.netflix.feign;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import lombok.extern.slf4j.Slf4j;
+
 import org.springframework.beans.factory.BeanClassLoaderAware;
 import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
@@ -12,27 +23,52 @@ import org.springframework.beans.factory.config.BeanDefinitionHolder;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.BeanDefinitionReaderUtils;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.context.EnvironmentAware;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
 import org.springframework.context.annotation.ImportBeanDefinitionRegistrar;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.FileCopyUtils;
 import org.springframework.util.StringUtils;
 
 /**
+ * Registers a bean for each <code>@FeignClient</code> interface in the base packages.
+ * If there is an index of the interfaces on the classpath (see
+ * <code>spring-cloud-netflix-feign-indexer</code>) it is used instead of scanning the
+ * classpath roots (directories or jars) that have one, unless
+ * <code>feign.index.enabled=false</code>. Roots without an index are still scanned.
+ *
  * @author Spencer Gibb
  * patterned after Spring Integration IntegrationComponentScanRegistrar
  */
+@Slf4j
 public class FeignClientScanRegistrar extends FeignConfiguration
-		implements ImportBeanDefinitionRegistrar, ResourceLoaderAware, BeanClassLoaderAware {
+		implements ImportBeanDefinitionRegistrar, ResourceLoaderAware, BeanClassLoaderAware, EnvironmentAware {
+
+	/**
+	 * The location of the index files written by the annotation processor.
+	 */
+	public static final String INDEX_LOCATION = "META-INF/feign.clients";
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
 
 	private ResourceLoader resourceLoader;
 
 	private ClassLoader classLoader;
 
+	private Environment environment;
+
 	public FeignClientScanRegistrar() {
 	}
 
@@ -46,29 +82,170 @@ public class FeignClientScanRegistrar extends FeignConfiguration
 		this.classLoader = classLoader;
 	}
 
+	@Override
+	public void setEnvironment(Environment environment) {
+		this.environment = environment;
+	}
+
 	@Override
 	public void registerBeanDefinitions(AnnotationMetadata importingClassMetadata, BeanDefinitionRegistry registry) {
 
 		Set<String> basePackages = getBasePackages(importingClassMetadata);
 
+		Collection<AnnotationMetadata> candidates = findIndexedCandidates(basePackages);
+		if (candidates == null) {
+			candidates = scanCandidates(basePackages);
+		}
+
+		for (AnnotationMetadata annotationMetadata : candidates) {
+			//verify annotated class is an interface
+			Assert.isTrue(annotationMetadata.isInterface(), "@FeignClient can only be specified on an interface");
+
+			BeanDefinitionHolder holder = createBeanDefinition(annotationMetadata);
+			BeanDefinitionReaderUtils.registerBeanDefinition(holder, registry);
+		}
+	}
+
+	/**
+	 * Find the clients in the base packages from the index files on the classpath, and
+	 * by scanning the base packages in the classpath roots that have no index.
+	 *
+	 * @return the clients, or null if the index is switched off or there is no index
+	 */
+	protected Collection<AnnotationMetadata> findIndexedCandidates(Set<String> basePackages) {
+		if (environment != null
+				&& !environment.getProperty("feign.index.enabled", Boolean.class, true)) {
+			log.debug("The @FeignClient index is switched off, scanning " + basePackages);
+			return null;
+		}
+		ClassLoader loader = classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader();
+		Set<String> classNames = new LinkedHashSet<>();
+		Set<String> indexedRoots = new LinkedHashSet<>();
+		try {
+			Enumeration<URL> urls = loader.getResources(INDEX_LOCATION);
+			if (!urls.hasMoreElements()) {
+				log.debug("No @FeignClient index found, scanning " + basePackages);
+				return null;
+			}
+			while (urls.hasMoreElements()) {
+				URL url = urls.nextElement();
+				indexedRoots.add(getRoot(url, INDEX_LOCATION));
+				String content = new String(FileCopyUtils.copyToByteArray(url.openStream()), UTF_8);
+				for (String line : StringUtils.tokenizeToStringArray(content, "\r\n")) {
+					if (isInPackages(line, basePackages)) {
+						classNames.add(line);
+					}
+				}
+			}
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Could not read " + INDEX_LOCATION, e);
+		}
+		MetadataReaderFactory readers = resourceLoader != null
+				? new SimpleMetadataReaderFactory(resourceLoader)
+				: new SimpleMetadataReaderFactory(loader);
+		// Keyed by class name, since a client can be in an index and in a scanned root
+		Map<String, AnnotationMetadata> candidates = new LinkedHashMap<>();
+		for (String className : classNames) {
+			AnnotationMetadata metadata;
+			try {
+				metadata = readers.getMetadataReader(className).getAnnotationMetadata();
+			}
+			catch (IOException e) {
+				// Left over from a type that no longer exists
+				continue;
+			}
+			if (metadata.hasAnnotation(FeignClient.class.getName())) {
+				candidates.put(className, metadata);
+			}
+		}
+		Set<String> scannedRoots = scanUnindexedRoots(loader, readers, basePackages,
+				indexedRoots, candidates);
+		if (scannedRoots.isEmpty()) {
+			log.debug("Found @FeignClient index in " + indexedRoots);
+		}
+		else {
+			log.info("Found @FeignClient index in " + indexedRoots
+					+ ", scanning classpath roots without one: " + scannedRoots);
+		}
+		return candidates.values();
+	}
+
+	/**
+	 * Scan the base packages in each classpath root that contains them but has no index.
+	 *
+	 * @return the roots that were scanned
+	 */
+	private Set<String> scanUnindexedRoots(ClassLoader loader, MetadataReaderFactory readers,
+			Set<String> basePackages, Set<String> indexedRoots,
+			Map<String, AnnotationMetadata> candidates) {
+		ResourcePatternResolver resolver = resourceLoader != null
+				? new PathMatchingResourcePatternResolver(resourceLoader)
+				: new PathMatchingResourcePatternResolver(loader);
+		Set<String> scannedRoots = new LinkedHashSet<>();
+		try {
+			for (String basePackage : basePackages) {
+				String path = ClassUtils.convertClassNameToResourcePath(basePackage);
+				Enumeration<URL> urls = loader.getResources(path);
+				while (urls.hasMoreElements()) {
+					String root = getRoot(urls.nextElement(), path);
+					if (indexedRoots.contains(root)) {
+						continue;
+					}
+					scannedRoots.add(root);
+					for (Resource resource : resolver.getResources(root + path + "/**/*.class")) {
+						MetadataReader reader = readers.getMetadataReader(resource);
+						AnnotationMetadata metadata = reader.getAnnotationMetadata();
+						if (metadata.hasAnnotation(FeignClient.class.getName())
+								&& !candidates.containsKey(metadata.getClassName())) {
+							candidates.put(metadata.getClassName(), metadata);
+						}
+					}
+				}
+			}
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Could not scan " + basePackages, e);
+		}
+		return scannedRoots;
+	}
+
+	/**
+	 * The classpath root (directory or jar) that a resource was found in, as a URL
+	 * ending with a slash.
+	 */
+	private String getRoot(URL url, String path) {
+		String location = url.toString();
+		if (location.endsWith("/")) {
+			location = location.substring(0, location.length() - 1);
+		}
+		return location.substring(0, location.length() - path.length());
+	}
+
+	private boolean isInPackages(String className, Set<String> basePackages) {
+		for (String basePackage : basePackages) {
+			if (className.startsWith(basePackage + ".")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	protected Collection<AnnotationMetadata> scanCandidates(Set<String> basePackages) {
 		ClassPathScanningCandidateComponentProvider scanner = getScanner();
 		scanner.addIncludeFilter(new AnnotationTypeFilter(FeignClient.class));
 		scanner.setResourceLoader(resourceLoader);
 
+		List<AnnotationMetadata> candidates = new ArrayList<>();
 		for (String basePackage : basePackages) {
 			Set<BeanDefinition> candidateComponents = scanner.findCandidateComponents(basePackage);
 			for (BeanDefinition candidateComponent : candidateComponents) {
 				if (candidateComponent instanceof AnnotatedBeanDefinition) {
-					//verify annotated class is an interface
-					AnnotatedBeanDefinition beanDefinition = (AnnotatedBeanDefinition) candidateComponent;
-					AnnotationMetadata annotationMetadata = beanDefinition.getMetadata();
-					Assert.isTrue(annotationMetadata.isInterface(), "@FeignClient can only be specified on an interface");
-
-					BeanDefinitionHolder holder = createBeanDefinition(annotationMetadata);
-					BeanDefinitionReaderUtils.registerBeanDefinition(holder, registry);
+					candidates.add(((AnnotatedBeanDefinition) candidateComponent).getMetadata());
 				}
 			}
 		}
+		return candidates;
 	}
 
 	public BeanDefinitionHolder createBeanDefinition(AnnotationMetadata annotationMetadata) {
@@ -79,6 +256,13 @@ public class FeignClientScanRegistrar extends FeignConfiguration
 		definition.addPropertyValue("loadbalance", attributes.get("loadbalance"));
 		definition.addPropertyValue("type", className);
 		definition.addPropertyValue("schemeName", attributes.get("value"));
+		definition.addPropertyValue("hystrix", attributes.get("hystrix"));
+		Object fallback = attributes.get("fallback");
+		if (fallback != null && !void.class.equals(fallback) && !void.class.getName().equals(fallback)) {
+			definition.addPropertyValue("fallback", fallback);
+			// The fallback implements the same interface, so callers get the client
+			definition.getBeanDefinition().setPrimary(true);
+		}
 
 		String beanName = StringUtils.uncapitalize(className.substring(className.lastIndexOf(".") + 1));
 		return new BeanDefinitionHolder(definition.getBeanDefinition(), beanName);
@@ -0,0 +1,23 @@
+package org.springframework.cloud.netflix.feign;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a method of a Hystrix enabled {@link FeignClient} as collapsible: calls made
+ * within a short time of each other are sent together in one call to the batch method.
+ * The annotated method has to take a single argument. The batch method is another
+ * method of the same interface that takes a <code>List</code> of those arguments and
+ * returns a <code>List</code> (or other <code>Collection</code>) with one result for
+ * each argument, in the same order.
+ *
+ * @author Dave Syer
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface FeignCollapser {
+	/**
+	 * @return the name of the batch method
+	 */
+	String batchMethod();
+}
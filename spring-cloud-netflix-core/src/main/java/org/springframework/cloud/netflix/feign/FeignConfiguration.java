@@ -1,8 +1,14 @@
 package org.springframework.cloud.netflix.feign;
 
+import java.net.URI;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
 import org.springframework.cloud.netflix.archaius.ConfigurableEnvironmentConfiguration;
+import org.springframework.cloud.netflix.ribbon.RibbonAsyncClientHttpRequestFactory;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
 
 import feign.Client;
 import feign.Contract;
@@ -50,6 +56,13 @@ public class FeignConfiguration {
     @Autowired(required = false)
     Client ribbonClient;
 
+    @Autowired(required = false)
+    LoadBalancerClient loadBalancerClient;
+
+    @Autowired(required = false)
+    @Qualifier("ribbonAsyncClientHttpRequestFactory")
+    AsyncClientHttpRequestFactory asyncRequestFactory;
+
     protected Feign.Builder feign() {
 		Feign.Builder builder = Feign.builder()
 				//required values
@@ -63,6 +76,7 @@ public class FeignConfiguration {
 			builder.logLevel(logLevel);
 		if (retryer != null)
 			builder.retryer(retryer);
+		ErrorDecoder errorDecoder = errorDecoder();
 		if (errorDecoder != null)
 			builder.errorDecoder(errorDecoder);
 		if (options != null)
@@ -71,16 +85,64 @@ public class FeignConfiguration {
 		return builder;
     }
 
+    /**
+     * The error decoder for the responses of the client (null for the Feign default).
+     */
+    protected ErrorDecoder errorDecoder() {
+        return errorDecoder;
+    }
+
     protected <T> T loadBalance(Class<T> type, String schemeName) {
         return loadBalance(feign(), type, schemeName);
     }
 
     protected <T> T loadBalance(Feign.Builder builder, Class<T> type, String schemeName) {
+        // The service id, since the URL of each request is rewritten to a server
+        String name = URI.create(schemeName).getHost();
+        T client;
         if(ribbonClient != null) {
-            return builder.client(ribbonClient).target(type, schemeName);
+            client = compress(builder, new CompressingClient(ribbonClient, name)).target(type, schemeName);
         } else {
-            return builder.target(LoadBalancingTarget.create(type, schemeName));
+            client = compress(builder, new CompressingClient(name))
+                    .target(LoadBalancingTarget.create(type, schemeName));
         }
+        return async(type, client, schemeName, true);
+    }
+
+    /**
+     * Send the requests of the client with the {@link CompressingClient}, registering it
+     * as an interceptor too so that it can compress them.
+     */
+    protected Feign.Builder compress(Feign.Builder builder, CompressingClient client) {
+        return builder.client(client).requestInterceptor(client);
+    }
+
+    /**
+     * Send the requests of the methods of the client that return a <code>Future</code>,
+     * <code>ListenableFuture</code> or <code>Observable</code> with the non-blocking
+     * request factory, choosing a server with the {@link LoadBalancerClient} if the
+     * client is load balanced.
+     */
+    protected <T> T async(Class<T> type, T client, String url, boolean loadBalanced) {
+        AsyncClientHttpRequestFactory requestFactory = asyncRequestFactory;
+        if (loadBalanced) {
+            requestFactory = asyncRequestFactory == null || loadBalancerClient == null ? null
+                    : new RibbonAsyncClientHttpRequestFactory(loadBalancerClient, asyncRequestFactory);
+        }
+        return AsyncInvocationHandler.wrap(type, client, url, requestFactory,
+                new CompressingClient(URI.create(url).getHost()), contract, encoder,
+                decoder, errorDecoder());
+    }
+
+    /**
+     * Run the methods of the client in Hystrix commands, with the name of the client as
+     * the command group, calling the fallback (if not null) when a command fails. The
+     * client should be built with {@link #async(Class, Object, String, boolean)} (so the
+     * commands of async methods do not block) and with an {@link #errorDecoder()} from
+     * {@link HystrixInvocationHandler#badRequests(ErrorDecoder)}.
+     */
+    protected <T> T hystrix(Class<T> type, T client, String name, T fallback) {
+        return HystrixInvocationHandler.wrap(type, client, name, fallback);
     }
 
 }
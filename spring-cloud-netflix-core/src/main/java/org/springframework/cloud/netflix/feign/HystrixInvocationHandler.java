@@ -0,0 +1,517 @@
+package org.springframework.cloud.netflix.feign;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import rx.Observable;
+import rx.Observable.OnSubscribe;
+import rx.Subscriber;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.functions.Func1;
+import rx.subscriptions.Subscriptions;
+
+import com.google.common.base.Throwables;
+import com.netflix.config.DynamicPropertyFactory;
+import com.netflix.hystrix.HystrixCollapser;
+import com.netflix.hystrix.HystrixCollapserKey;
+import com.netflix.hystrix.HystrixCollapserProperties;
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
+import com.netflix.hystrix.HystrixObservableCommand;
+import com.netflix.hystrix.exception.HystrixBadRequestException;
+
+import feign.Feign;
+import feign.Response;
+import feign.RetryableException;
+import feign.codec.ErrorDecoder;
+
+/**
+ * Runs each method of a Feign client in a {@link HystrixCommand}. The group (and so the
+ * thread pool) of the commands is the name of the client, and the command key is the
+ * fully qualified interface name and method (e.g.
+ * <code>com.example.StoreClient#getStores()</code>), so the usual
+ * <code>hystrix.command.*</code> and <code>hystrix.threadpool.*</code> properties
+ * apply. The default isolation strategy for a client comes from
+ * <code>feign.hystrix.&lt;client&gt;.isolation</code> (THREAD or SEMAPHORE) and
+ * <code>feign.hystrix.&lt;client&gt;.semaphore.maxSemaphores</code>.
+ *
+ * Methods that return a <code>Future</code>, <code>ListenableFuture</code> or
+ * <code>Observable</code> run in a {@link HystrixObservableCommand} around the
+ * non-blocking request from the {@link AsyncInvocationHandler}, so neither the caller
+ * nor a Hystrix thread waits for the response. Those commands always use semaphore
+ * isolation, which limits the number of requests in flight.
+ *
+ * If there is a fallback, the same method is called on it when a command fails, times
+ * out or is short circuited. A 4xx response is the fault of the caller, so the client's
+ * {@link #badRequests(ErrorDecoder) error decoder} turns it into a
+ * {@link HystrixBadRequestException}. It is thrown back (unwrapped) without counting as
+ * a failure of the command or calling the fallback.
+ *
+ * Calls to a method marked with {@link FeignCollapser} go through a global
+ * {@link HystrixCollapser}, which sends them in batches to the batch method. The
+ * collapser key is the name of the client and the command key of the collapsed method
+ * (e.g. <code>stores.com.example.StoreClient#getStore(Long)</code>), and the defaults
+ * for a client come from <code>feign.hystrix.&lt;client&gt;.collapser.timerDelayInMilliseconds</code>
+ * and <code>feign.hystrix.&lt;client&gt;.collapser.maxRequestsInBatch</code>.
+ *
+ * @author Dave Syer
+ */
+class HystrixInvocationHandler implements InvocationHandler {
+
+    private final Object target;
+
+    private final InvocationHandler delegate;
+
+    private final Object fallback;
+
+    private final Map<Method, HystrixCommand.Setter> setters = new HashMap<>();
+
+    private final Map<Method, HystrixObservableCommand.Setter> observableSetters = new HashMap<>();
+
+    private final Map<Method, Method> batchMethods = new HashMap<>();
+
+    private final Map<Method, HystrixCollapser.Setter> collapserSetters = new HashMap<>();
+
+    private final Map<Method, String> collapserKeys = new HashMap<>();
+
+    /**
+     * The handler that sends the batches of each collapser key. A global collapser
+     * outlives the handler that created it, so its batches go to the latest handler for
+     * the key instead.
+     */
+    private static final ConcurrentMap<String, HystrixInvocationHandler> collapsed = new ConcurrentHashMap<>();
+
+    private HystrixInvocationHandler(Class<?> type, Object target, String name,
+            Object fallback) {
+        this.target = target;
+        this.delegate = Proxy.getInvocationHandler(target);
+        this.fallback = fallback;
+        DynamicPropertyFactory properties = DynamicPropertyFactory.getInstance();
+        ExecutionIsolationStrategy isolation = ExecutionIsolationStrategy
+                .valueOf(properties.getStringProperty(
+                        "feign.hystrix." + name + ".isolation",
+                        ExecutionIsolationStrategy.THREAD.name()).get().toUpperCase());
+        int maxSemaphores = properties.getIntProperty(
+                "feign.hystrix." + name + ".semaphore.maxSemaphores", 10).get();
+        HystrixCommandGroupKey group = HystrixCommandGroupKey.Factory.asKey(name);
+        for (Method method : type.getMethods()) {
+            HystrixCommandKey key = HystrixCommandKey.Factory.asKey(commandKey(type, method));
+            if (AsyncInvocationHandler.isAsync(method.getReturnType())) {
+                // A thread would only wait for the non-blocking request
+                this.observableSetters.put(method, HystrixObservableCommand.Setter
+                        .withGroupKey(group)
+                        .andCommandKey(key)
+                        .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                                .withExecutionIsolationStrategy(ExecutionIsolationStrategy.SEMAPHORE)
+                                .withExecutionIsolationSemaphoreMaxConcurrentRequests(maxSemaphores)));
+            }
+            this.setters.put(method, HystrixCommand.Setter
+                    .withGroupKey(group)
+                    .andCommandKey(key)
+                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                            .withExecutionIsolationStrategy(isolation)
+                            .withExecutionIsolationSemaphoreMaxConcurrentRequests(maxSemaphores)));
+        }
+        int timerDelay = properties.getIntProperty(
+                "feign.hystrix." + name + ".collapser.timerDelayInMilliseconds", 10).get();
+        int maxRequestsInBatch = properties.getIntProperty(
+                "feign.hystrix." + name + ".collapser.maxRequestsInBatch",
+                Integer.MAX_VALUE).get();
+        for (Method method : type.getMethods()) {
+            FeignCollapser collapser = method.getAnnotation(FeignCollapser.class);
+            if (collapser == null) {
+                continue;
+            }
+            this.batchMethods.put(method, findBatchMethod(type, method,
+                    collapser.batchMethod()));
+            String collapserKey = name + "." + commandKey(type, method);
+            this.collapserKeys.put(method, collapserKey);
+            this.collapserSetters.put(method, HystrixCollapser.Setter
+                    .withCollapserKey(HystrixCollapserKey.Factory.asKey(collapserKey))
+                    // Callers do not have a request context, so collapse across all threads
+                    .andScope(HystrixCollapser.Scope.GLOBAL)
+                    .andCollapserPropertiesDefaults(HystrixCollapserProperties.Setter()
+                            .withTimerDelayInMilliseconds(timerDelay)
+                            .withMaxRequestsInBatch(maxRequestsInBatch)));
+        }
+    }
+
+    /**
+     * The Feign config key of a method, qualified with the package of the interface so
+     * that clients with the same simple name do not share a key.
+     */
+    static String commandKey(Class<?> type, Method method) {
+        String configKey = Feign.configKey(method);
+        return type.getName() + configKey.substring(configKey.indexOf('#'));
+    }
+
+    private static Method findBatchMethod(Class<?> type, Method method, String name) {
+        if (method.getParameterTypes().length != 1) {
+            throw new IllegalStateException("Collapsed method " + Feign.configKey(method)
+                    + " must have exactly one parameter");
+        }
+        for (Method candidate : type.getMethods()) {
+            if (!candidate.getName().equals(name)
+                    || candidate.getParameterTypes().length != 1) {
+                continue;
+            }
+            if (candidate.getParameterTypes()[0].isAssignableFrom(ArrayList.class)
+                    && Collection.class.isAssignableFrom(candidate.getReturnType())) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("No batch method " + name + " for "
+                + Feign.configKey(method) + " (it must take a List and return a List)");
+    }
+
+    /**
+     * Wrap an error decoder so that a 4xx response is decoded to a
+     * {@link HystrixBadRequestException}, with the exception from the delegate as its
+     * cause. Retryable exceptions are left alone, so that Feign can retry them.
+     *
+     * @param delegate the error decoder of the client (null for the Feign default)
+     */
+    static ErrorDecoder badRequests(ErrorDecoder delegate) {
+        return new BadRequestErrorDecoder(delegate != null ? delegate
+                : new ErrorDecoder.Default());
+    }
+
+    /**
+     * Wrap the Feign client so its methods run in Hystrix commands.
+     *
+     * @param type the client interface
+     * @param target the Feign client (wrapped for its async methods)
+     * @param name the name of the client (the command group)
+     * @param fallback an implementation of the client interface to call when a command
+     * fails (may be null)
+     */
+    static <T> T wrap(Class<T> type, T target, String name, T fallback) {
+        HystrixInvocationHandler handler = new HystrixInvocationHandler(type, target,
+                name, fallback);
+        for (String collapserKey : handler.collapserKeys.values()) {
+            collapsed.put(collapserKey, handler);
+        }
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(),
+                new Class<?>[] { type }, handler));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if ("equals".equals(method.getName()) && method.getParameterTypes().length == 1) {
+            Object other = args[0];
+            return other != null && Proxy.isProxyClass(other.getClass())
+                    && Proxy.getInvocationHandler(other) == this;
+        }
+        if ("hashCode".equals(method.getName()) && method.getParameterTypes().length == 0) {
+            return this.delegate.hashCode();
+        }
+        if ("toString".equals(method.getName()) && method.getParameterTypes().length == 0) {
+            return this.delegate.toString();
+        }
+        Class<?> returnType = method.getReturnType();
+        if (this.batchMethods.containsKey(method)) {
+            FeignBatchCollapser collapser = new FeignBatchCollapser(
+                    this.collapserSetters.get(method), this.collapserKeys.get(method),
+                    method, args[0]);
+            if (returnType == Future.class) {
+                return collapser.queue();
+            }
+            if (returnType == ListenableFuture.class) {
+                return toListenableFuture(collapser.toObservable());
+            }
+            if (returnType == Observable.class) {
+                return collapser.toObservable();
+            }
+            return collapser.execute();
+        }
+        if (this.observableSetters.containsKey(method)) {
+            Observable<Object> observable = observe(method, args);
+            if (returnType == Observable.class) {
+                return observable;
+            }
+            return toListenableFuture(observable);
+        }
+        FeignCommand command = new FeignCommand(this.setters.get(method), method, args);
+        try {
+            return command.execute();
+        }
+        catch (HystrixBadRequestException e) {
+            // Callers see the same exception as without Hystrix
+            throw e.getCause() != null ? e.getCause() : e;
+        }
+    }
+
+    private Observable<Object> observe(final Method method, final Object[] args) {
+        // A command can only run once, but an Observable can be subscribed to again
+        return unwrapBadRequest(Observable.defer(new Func0<Observable<Object>>() {
+            @Override
+            public Observable<Object> call() {
+                return new FeignObservableCommand(
+                        HystrixInvocationHandler.this.observableSetters.get(method), method,
+                        args).toObservable();
+            }
+        }));
+    }
+
+    private static Observable<Object> unwrapBadRequest(Observable<Object> observable) {
+        return observable.onErrorResumeNext(new Func1<Throwable, Observable<Object>>() {
+            @Override
+            public Observable<Object> call(Throwable e) {
+                if (e instanceof HystrixBadRequestException && e.getCause() != null) {
+                    return Observable.error(e.getCause());
+                }
+                return Observable.error(e);
+            }
+        });
+    }
+
+    /**
+     * The value of the result of an async method as an Observable.
+     */
+    @SuppressWarnings("unchecked")
+    private static Observable<Object> asObservable(Object result) {
+        if (result instanceof Observable) {
+            return (Observable<Object>) result;
+        }
+        if (result instanceof ListenableFuture) {
+            return asObservable((ListenableFuture<Object>) result);
+        }
+        if (result instanceof Future) {
+            // Only from a fallback, which has the value already
+            return Observable.from((Future<Object>) result);
+        }
+        return Observable.just(result);
+    }
+
+    private static Observable<Object> asObservable(final ListenableFuture<Object> future) {
+        return Observable.create(new OnSubscribe<Object>() {
+            @Override
+            public void call(final Subscriber<? super Object> subscriber) {
+                // Hystrix unsubscribes when the command times out
+                subscriber.add(Subscriptions.create(new Action0() {
+                    @Override
+                    public void call() {
+                        future.cancel(true);
+                    }
+                }));
+                future.addCallback(new ListenableFutureCallback<Object>() {
+                    @Override
+                    public void onSuccess(Object result) {
+                        if (!subscriber.isUnsubscribed()) {
+                            subscriber.onNext(result);
+                            subscriber.onCompleted();
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Throwable e) {
+                        if (!subscriber.isUnsubscribed()) {
+                            subscriber.onError(e);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private ListenableFuture<Object> toListenableFuture(Observable<Object> observable) {
+        final SettableListenableFuture<Object> future = new SettableListenableFuture<>();
+        observable.subscribe(new Action1<Object>() {
+            @Override
+            public void call(Object result) {
+                future.set(result);
+            }
+        }, new Action1<Throwable>() {
+            @Override
+            public void call(Throwable e) {
+                future.setException(e);
+            }
+        });
+        return future;
+    }
+
+    private static class FeignBatchCollapser extends HystrixCollapser<Object, Object, Object> {
+
+        private final String key;
+
+        private final Method method;
+
+        private final Object argument;
+
+        FeignBatchCollapser(Setter setter, String key, Method method, Object argument) {
+            super(setter);
+            this.key = key;
+            this.method = method;
+            this.argument = argument;
+        }
+
+        @Override
+        public Object getRequestArgument() {
+            return this.argument;
+        }
+
+        @Override
+        protected HystrixCommand<Object> createCommand(
+                Collection<CollapsedRequest<Object, Object>> requests) {
+            List<Object> arguments = new ArrayList<>();
+            for (CollapsedRequest<Object, Object> request : requests) {
+                arguments.add(request.getArgument());
+            }
+            HystrixInvocationHandler handler = collapsed.get(this.key);
+            Method batchMethod = handler.batchMethods.get(this.method);
+            return handler.new FeignCommand(handler.setters.get(batchMethod), batchMethod,
+                    new Object[] { arguments });
+        }
+
+        @Override
+        protected void mapResponseToRequests(Object batchResponse,
+                Collection<CollapsedRequest<Object, Object>> requests) {
+            Collection<?> results = batchResponse == null ? new ArrayList<Object>()
+                    : (Collection<?>) batchResponse;
+            if (results.size() != requests.size()) {
+                IllegalStateException e = new IllegalStateException("Batch method "
+                        + Feign.configKey(collapsed.get(this.key).batchMethods.get(this.method))
+                        + " returned " + results.size() + " results for "
+                        + requests.size() + " requests");
+                for (CollapsedRequest<Object, Object> request : requests) {
+                    request.setException(e);
+                }
+                return;
+            }
+            int i = 0;
+            Object[] values = results.toArray();
+            for (CollapsedRequest<Object, Object> request : requests) {
+                request.setResponse(values[i++]);
+            }
+        }
+
+    }
+
+    private class FeignCommand extends HystrixCommand<Object> {
+
+        private final Method method;
+
+        private final Object[] args;
+
+        FeignCommand(Setter setter, Method method, Object[] args) {
+            super(setter);
+            this.method = method;
+            this.args = args;
+        }
+
+        @Override
+        protected Object run() throws Exception {
+            try {
+                return delegate.invoke(target, this.method, this.args);
+            }
+            catch (Exception e) {
+                throw e;
+            }
+            catch (Error e) {
+                throw e;
+            }
+            catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            }
+        }
+
+        @Override
+        protected Object getFallback() {
+            if (fallback == null) {
+                return super.getFallback();
+            }
+            try {
+                return this.method.invoke(fallback, this.args);
+            }
+            catch (InvocationTargetException e) {
+                throw Throwables.propagate(e.getCause());
+            }
+            catch (Exception e) {
+                throw Throwables.propagate(e);
+            }
+        }
+
+    }
+
+    private class FeignObservableCommand extends HystrixObservableCommand<Object> {
+
+        private final Method method;
+
+        private final Object[] args;
+
+        FeignObservableCommand(Setter setter, Method method, Object[] args) {
+            super(setter);
+            this.method = method;
+            this.args = args;
+        }
+
+        @Override
+        protected Observable<Object> run() {
+            try {
+                // The async handler sends the request and returns straight away
+                return asObservable(delegate.invoke(target, this.method, this.args));
+            }
+            catch (Throwable e) {
+                return Observable.error(e);
+            }
+        }
+
+        @Override
+        protected Observable<Object> getFallback() {
+            if (fallback == null) {
+                return super.getFallback();
+            }
+            try {
+                return asObservable(this.method.invoke(fallback, this.args));
+            }
+            catch (InvocationTargetException e) {
+                return Observable.error(e.getCause());
+            }
+            catch (Exception e) {
+                return Observable.error(e);
+            }
+        }
+
+    }
+
+    private static class BadRequestErrorDecoder implements ErrorDecoder {
+
+        private final ErrorDecoder delegate;
+
+        BadRequestErrorDecoder(ErrorDecoder delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Exception decode(String methodKey, Response response) {
+            Exception e = this.delegate.decode(methodKey, response);
+            if (response.status() >= 400 && response.status() < 500
+                    && !(e instanceof RetryableException)) {
+                return new HystrixBadRequestException(e.getMessage(), e);
+            }
+            return e;
+        }
+
+    }
+
+}
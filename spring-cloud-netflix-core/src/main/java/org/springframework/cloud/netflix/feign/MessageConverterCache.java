@@ -0,0 +1,99 @@
+package org.springframework.cloud.netflix.feign;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Remembers which of a list of {@link HttpMessageConverter HttpMessageConverters} was
+ * chosen for a Java type and media type, so the list is only scanned once for each
+ * combination. The cache is dropped when the list of converters changes.
+ *
+ * @author Dave Syer
+ */
+abstract class MessageConverterCache {
+
+    // Media types come from the remote server, so don't let them fill memory
+    private static final int MAX_SIZE = 512;
+
+    private volatile Selections selections;
+
+    /**
+     * @return the first converter in the list that can handle the type and media type,
+     * or null if there is none
+     */
+    HttpMessageConverter<?> find(List<HttpMessageConverter<?>> converters, Type type,
+            MediaType mediaType) {
+        Selections selections = this.selections;
+        if (selections == null || selections.converters != converters) {
+            selections = new Selections(converters);
+            this.selections = selections;
+        }
+        Key key = new Key(type, mediaType);
+        HttpMessageConverter<?> converter = selections.cache.get(key);
+        if (converter == null) {
+            for (HttpMessageConverter<?> candidate : converters) {
+                if (canHandle(candidate, type, mediaType)) {
+                    converter = candidate;
+                    if (selections.cache.size() < MAX_SIZE) {
+                        selections.cache.putIfAbsent(key, converter);
+                    }
+                    break;
+                }
+            }
+        }
+        return converter;
+    }
+
+    protected abstract boolean canHandle(HttpMessageConverter<?> converter, Type type,
+            MediaType mediaType);
+
+    private static class Selections {
+
+        private final List<HttpMessageConverter<?>> converters;
+
+        private final ConcurrentMap<Key, HttpMessageConverter<?>> cache = new ConcurrentHashMap<>();
+
+        Selections(List<HttpMessageConverter<?>> converters) {
+            this.converters = converters;
+        }
+
+    }
+
+    private static class Key {
+
+        private final Type type;
+
+        private final MediaType mediaType;
+
+        Key(Type type, MediaType mediaType) {
+            this.type = type;
+            this.mediaType = mediaType;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return type.equals(other.type)
+                    && ObjectUtils.nullSafeEquals(mediaType, other.mediaType);
+        }
+
+        @Override
+        public int hashCode() {
+            return type.hashCode() * 31 + ObjectUtils.nullSafeHashCode(mediaType);
+        }
+
+    }
+
+}
@@ -9,8 +9,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.web.HttpMessageConverters;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.client.ClientHttpResponse;
-import org.springframework.web.client.HttpMessageConverterExtractor;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.client.RestClientException;
 
 import feign.FeignException;
 import feign.Response;
@@ -20,6 +23,11 @@ import feign.codec.Decoder;
 import static org.springframework.cloud.netflix.feign.FeignUtils.getHttpHeaders;
 
 /**
+ * Decoder that reads the response body with the first of the
+ * {@link HttpMessageConverters} that can handle it, in the same way as a
+ * <code>RestTemplate</code>. The choice of converter is cached for each target type and
+ * response content type.
+ *
  * @author Spencer Gibb
  */
 public class SpringDecoder implements Decoder {
@@ -27,24 +35,73 @@ public class SpringDecoder implements Decoder {
     @Autowired
     HttpMessageConverters messageConverters;
 
+	private final MessageConverterCache converters = new MessageConverterCache() {
+		@Override
+		protected boolean canHandle(HttpMessageConverter<?> converter, Type type,
+				MediaType mediaType) {
+			if (converter instanceof GenericHttpMessageConverter) {
+				if (((GenericHttpMessageConverter<?>) converter).canRead(type, null,
+						mediaType)) {
+					return true;
+				}
+			}
+			// Like RestTemplate, only generic converters are used for parameterized types
+			return type instanceof Class && converter.canRead((Class<?>) type, mediaType);
+		}
+	};
+
 	public SpringDecoder() {
 	}
 
+	public SpringDecoder(HttpMessageConverters messageConverters) {
+		this.messageConverters = messageConverters;
+	}
+
 	@Override
 	public Object decode(final Response response, Type type) throws IOException, FeignException {
 		if (type instanceof Class || type instanceof ParameterizedType) {
-            @SuppressWarnings({ "unchecked", "rawtypes" })
-            HttpMessageConverterExtractor<?> extractor = new HttpMessageConverterExtractor(
-                    type, messageConverters.getConverters());
-
-            return extractor.extractData(new FeignResponseAdapter(response));
+			FeignResponseAdapter adapter = new FeignResponseAdapter(response);
+			if (!hasMessageBody(adapter)) {
+				return null;
+			}
+			MediaType contentType = adapter.getHeaders().getContentType();
+			if (contentType == null) {
+				contentType = MediaType.APPLICATION_OCTET_STREAM;
+			}
+			HttpMessageConverter<?> converter = converters.find(
+					messageConverters.getConverters(), type, contentType);
+			if (converter instanceof GenericHttpMessageConverter) {
+				return ((GenericHttpMessageConverter<?>) converter).read(type, null,
+						adapter);
+			}
+			if (converter != null) {
+				@SuppressWarnings("unchecked")
+				HttpMessageConverter<Object> copy = (HttpMessageConverter<Object>) converter;
+				@SuppressWarnings("unchecked")
+				Class<Object> responseClass = (Class<Object>) type;
+				return copy.read(responseClass, adapter);
+			}
+			throw new RestClientException(
+					"Could not extract response: no suitable HttpMessageConverter found for response type ["
+							+ type + "] and content type [" + contentType + "]");
         }
 		throw new DecodeException("type is not an instance of Class or ParameterizedType: " + type);
 	}
 
+	private boolean hasMessageBody(ClientHttpResponse response) throws IOException {
+		int status = response.getRawStatusCode();
+		if (status < 200 || status == HttpStatus.NO_CONTENT.value()
+				|| status == HttpStatus.NOT_MODIFIED.value()) {
+			return false;
+		}
+		return response.getHeaders().getContentLength() != 0;
+	}
+
     private class FeignResponseAdapter implements ClientHttpResponse {
 		private final Response response;
 
+		private HttpHeaders headers;
+
 		private FeignResponseAdapter(Response response) {
 			this.response = response;
 		}
@@ -81,7 +138,11 @@ public class SpringDecoder implements Decoder {
 
 		@Override
 		public HttpHeaders getHeaders() {
-			return getHttpHeaders(response.headers());
+			// Asked for more than once per response
+			if (headers == null) {
+				headers = getHttpHeaders(response.headers());
+			}
+			return headers;
 		}
 
 	}
@@ -18,22 +18,67 @@ import org.springframework.http.converter.HttpMessageConverter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
 import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import static org.springframework.cloud.netflix.feign.FeignUtils.getHttpHeaders;
 
 /**
+ * Encoder that writes the request body with the first of the
+ * {@link HttpMessageConverters} that can handle it (the choice is cached for each body
+ * type and content type). The body is written into a buffer from a small pool owned by
+ * the encoder, so the only allocation for most payloads is the array that is handed to
+ * Feign. Only buffers up to {@link #setMaxRetainedBufferSize(int) a limit} go back into
+ * the pool, so the memory kept is bounded whatever the number of threads.
+ *
  * @author Spencer Gibb
  */
 public class SpringEncoder implements Encoder {
 	private static final Logger logger = LoggerFactory.getLogger(SpringEncoder.class);
 
+
     @Autowired
     HttpMessageConverters messageConverters;
 
+	private int maxRetainedBufferSize = 64 * 1024;
+
+	private volatile BlockingQueue<ReusableOutputStream> buffers = new ArrayBlockingQueue<>(
+			16);
+
+	private final MessageConverterCache converters = new MessageConverterCache() {
+		@Override
+		protected boolean canHandle(HttpMessageConverter<?> converter, Type type,
+				MediaType mediaType) {
+			return converter.canWrite((Class<?>) type, mediaType);
+		}
+	};
+
 	public SpringEncoder() {
 	}
 
+	public SpringEncoder(HttpMessageConverters messageConverters) {
+		this.messageConverters = messageConverters;
+	}
+
+	/**
+	 * The largest buffer (in bytes) to keep for the next request after encoding a
+	 * body. Larger buffers are left for the garbage collector. Default 64KB.
+	 */
+	public void setMaxRetainedBufferSize(int maxRetainedBufferSize) {
+		this.maxRetainedBufferSize = maxRetainedBufferSize;
+	}
+
+	/**
+	 * The number of buffers to keep for reuse. When more requests than this are encoded
+	 * at the same time the extra buffers are left for the garbage collector. Default 16.
+	 */
+	public void setMaxPooledBuffers(int maxPooledBuffers) {
+		this.buffers = new ArrayBlockingQueue<>(Math.max(maxPooledBuffers, 1));
+	}
+
 	@Override
 	public void encode(Object requestBody, RequestTemplate request)
 			throws EncodeException {
@@ -48,34 +93,39 @@ public class SpringEncoder implements Encoder {
 				requestContentType = MediaType.valueOf(type);
 			}
 
-			for (HttpMessageConverter<?> messageConverter : messageConverters.getConverters()) {
-				if (messageConverter.canWrite(requestType, requestContentType)) {
-					if (logger.isDebugEnabled()) {
-						if (requestContentType != null) {
-							logger.debug("Writing [" + requestBody + "] as \""
-									+ requestContentType + "\" using ["
-									+ messageConverter + "]");
-						}
-						else {
-							logger.debug("Writing [" + requestBody + "] using ["
-									+ messageConverter + "]");
-						}
-
-					}
-
-					FeignOutputMessage outputMessage = new FeignOutputMessage(request);
-					try {
-						@SuppressWarnings("unchecked")
-						HttpMessageConverter<Object> copy = (HttpMessageConverter<Object>) messageConverter;
-						copy.write(requestBody, requestContentType, outputMessage);
+			HttpMessageConverter<?> messageConverter = converters.find(
+					messageConverters.getConverters(), requestType, requestContentType);
+			if (messageConverter != null) {
+				if (logger.isDebugEnabled()) {
+					if (requestContentType != null) {
+						logger.debug("Writing [" + requestBody + "] as \""
+								+ requestContentType + "\" using ["
+								+ messageConverter + "]");
 					}
-					catch (IOException e) {
-						throw new EncodeException("Error converting request body", e);
+					else {
+						logger.debug("Writing [" + requestBody + "] using ["
+								+ messageConverter + "]");
 					}
-					request.body(outputMessage.getOutputStream().toByteArray(),
-							Charsets.UTF_8); // TODO: set charset
-					return;
+
+				}
+
+				ReusableOutputStream buffer = acquireBuffer();
+				try {
+					FeignOutputMessage outputMessage = new FeignOutputMessage(request,
+							buffer);
+					@SuppressWarnings("unchecked")
+					HttpMessageConverter<Object> copy = (HttpMessageConverter<Object>) messageConverter;
+					copy.write(requestBody, requestContentType, outputMessage);
+					request.body(buffer.toByteArray(),
+							getCharset(outputMessage.getHeaders().getContentType()));
+				}
+				catch (IOException e) {
+					throw new EncodeException("Error converting request body", e);
 				}
+				finally {
+					releaseBuffer(buffer);
+				}
+				return;
 			}
 			String message = "Could not write request: no suitable HttpMessageConverter found for request type ["
 					+ requestType.getName() + "]";
@@ -86,12 +136,40 @@ public class SpringEncoder implements Encoder {
 		}
 	}
 
+	private Charset getCharset(MediaType contentType) {
+		// The converter sets the content type (with the charset it used) if there was
+		// none in the request
+		if (contentType != null && contentType.getCharSet() != null) {
+			return contentType.getCharSet();
+		}
+		return Charsets.UTF_8;
+	}
+
+	private ReusableOutputStream acquireBuffer() {
+		// A buffer in use is out of the pool, so it is never shared
+		ReusableOutputStream buffer = buffers.poll();
+		return buffer == null ? new ReusableOutputStream() : buffer;
+	}
+
+	private void releaseBuffer(ReusableOutputStream buffer) {
+		if (buffer.capacity() <= maxRetainedBufferSize) {
+			buffer.reset();
+			buffers.offer(buffer);
+		}
+	}
+
+	int getPooledBufferCount() {
+		return buffers.size();
+	}
+
 	private class FeignOutputMessage implements HttpOutputMessage {
-		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		final OutputStream outputStream;
 		RequestTemplate request;
+		private HttpHeaders headers;
 
-		private FeignOutputMessage(RequestTemplate request) {
+		private FeignOutputMessage(RequestTemplate request, OutputStream outputStream) {
 			this.request = request;
+			this.outputStream = outputStream;
 		}
 
 		@Override
@@ -101,11 +179,23 @@ public class SpringEncoder implements Encoder {
 
 		@Override
 		public HttpHeaders getHeaders() {
-			return getHttpHeaders(request.headers());
+			// Converters ask for the headers more than once, and may add to them
+			if (headers == null) {
+				headers = getHttpHeaders(request.headers());
+			}
+			return headers;
 		}
+	}
 
-		public ByteArrayOutputStream getOutputStream() {
-			return outputStream;
+	private static class ReusableOutputStream extends ByteArrayOutputStream {
+
+		private ReusableOutputStream() {
+			super(1024);
+		}
+
+		int capacity() {
+			return buf.length;
 		}
+
 	}
 }
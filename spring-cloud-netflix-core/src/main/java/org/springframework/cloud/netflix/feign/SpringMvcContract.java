@@ -26,7 +26,9 @@ public class SpringMvcContract extends Contract.BaseContract {
 
     @Override
     protected void processAnnotationOnMethod(MethodMetadata data, Annotation methodAnnotation, Method method) {
-        RequestMapping mapping = RequestMapping.class.cast(methodAnnotation);
+        // Other annotations, like @FeignCollapser, are not for the contract
+        RequestMapping mapping = methodAnnotation instanceof RequestMapping
+                ? (RequestMapping) methodAnnotation : null;
         if (mapping != null) {
             //HTTP Method
             checkOne(method, mapping.method(), "method");
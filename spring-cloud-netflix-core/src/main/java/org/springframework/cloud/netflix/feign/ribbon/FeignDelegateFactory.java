@@ -0,0 +1,18 @@
+package org.springframework.cloud.netflix.feign.ribbon;
+
+import com.netflix.client.config.IClientConfig;
+
+import feign.Client;
+
+/**
+ * Strategy for creating the {@link Client} that sends the requests for a Ribbon client to
+ * the chosen server. Called once per client name, so the delegate can hold state for
+ * that client, like a connection pool.
+ *
+ * @author Dave Syer
+ */
+public interface FeignDelegateFactory {
+
+    Client create(String clientName, IClientConfig config);
+
+}
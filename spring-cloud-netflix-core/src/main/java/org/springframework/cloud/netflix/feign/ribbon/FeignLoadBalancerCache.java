@@ -0,0 +1,100 @@
+package org.springframework.cloud.netflix.feign.ribbon;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cloud.netflix.ribbon.RetryBudget;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.context.ApplicationContext;
+
+import com.netflix.client.ClientFactory;
+import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.ILoadBalancer;
+
+import feign.Client;
+
+/**
+ * The {@link RibbonLoadBalancer} for each client name, created on first use and then
+ * shared by all the calls to that client. The load balancer and config come from the
+ * {@link SpringClientFactory} if there is one (so <code>@RibbonClient</code>
+ * configuration applies), and from the static Ribbon {@link ClientFactory} if not.
+ *
+ * @author Dave Syer
+ */
+class FeignLoadBalancerCache {
+
+    private final SpringClientFactory clientFactory;
+
+    private final ConcurrentMap<String, RibbonLoadBalancer> cache = new ConcurrentHashMap<>();
+
+    private volatile FeignDelegateFactory delegateFactory;
+
+    FeignLoadBalancerCache(SpringClientFactory clientFactory) {
+        this.clientFactory = clientFactory;
+    }
+
+    RibbonLoadBalancer get(String clientName, Client delegate) {
+        RibbonLoadBalancer client = cache.get(clientName);
+        if (client == null) {
+            client = create(clientName, delegate);
+            RibbonLoadBalancer existing = cache.putIfAbsent(clientName, client);
+            if (existing != null) {
+                client = existing;
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Use the factory to create a delegate for each client name, instead of sharing the
+     * default one.
+     */
+    void setDelegateFactory(FeignDelegateFactory delegateFactory) {
+        this.delegateFactory = delegateFactory;
+        clear();
+    }
+
+    /**
+     * Forget the clients created from a context that has been closed: just the one for
+     * the client name if it is a Ribbon client context, or all of them otherwise (e.g.
+     * if it is the parent context).
+     */
+    void closed(ApplicationContext context) {
+        String name = context.getEnvironment().getProperty("ribbon.client.name");
+        if (name != null) {
+            cache.remove(name);
+        }
+        else {
+            clear();
+        }
+    }
+
+    void clear() {
+        cache.clear();
+    }
+
+    private RibbonLoadBalancer create(String clientName, Client delegate) {
+        IClientConfig config;
+        ILoadBalancer lb;
+        RetryBudget retryBudget;
+        if (clientFactory != null) {
+            config = clientFactory.getClientConfig(clientName);
+            lb = clientFactory.getLoadBalancer(clientName);
+            // Shared with the other users of the same Ribbon client
+            retryBudget = clientFactory.getLoadBalancerContext(clientName).getRetryBudget();
+        }
+        else {
+            config = ClientFactory.getNamedConfig(clientName);
+            lb = ClientFactory.getNamedLoadBalancer(clientName);
+            retryBudget = RetryBudget.forClient(clientName);
+        }
+        FeignDelegateFactory delegateFactory = this.delegateFactory;
+        if (delegateFactory != null) {
+            delegate = delegateFactory.create(clientName, config);
+        }
+        RibbonLoadBalancer client = new RibbonLoadBalancer(delegate, lb, config);
+        client.setRetryBudget(retryBudget);
+        return client;
+    }
+
+}
@@ -0,0 +1,149 @@
+package org.springframework.cloud.netflix.feign.ribbon;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import com.netflix.client.config.CommonClientConfigKey;
+import com.netflix.client.config.IClientConfig;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+/**
+ * A Feign {@link Client} that sends requests through an Apache HttpClient with its own
+ * pool of keep-alive connections. The pool limits come from the Ribbon client config
+ * (<code>MaxTotalConnections</code> and <code>MaxConnectionsPerHost</code>), and the
+ * pool stats are exposed as Servo gauges.
+ *
+ * @author Dave Syer
+ */
+public class PooledHttpClient implements Client, Closeable {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final CloseableHttpClient httpClient;
+
+    private final long idleTimeout;
+
+    public PooledHttpClient(IClientConfig config) {
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(config.getPropertyAsInteger(
+                CommonClientConfigKey.MaxTotalConnections, 200));
+        connectionManager.setDefaultMaxPerRoute(config.getPropertyAsInteger(
+                CommonClientConfigKey.MaxConnectionsPerHost, 50));
+        idleTimeout = config.getPropertyAsInteger(
+                CommonClientConfigKey.ConnIdleEvictTimeMilliSeconds, 30000);
+        // Redirects and retries are left to Feign and Ribbon
+        httpClient = HttpClients.custom().setConnectionManager(connectionManager)
+                .disableRedirectHandling().disableAutomaticRetries()
+                .disableContentCompression().build();
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        HttpResponse response = httpClient.execute(toHttpRequest(request, options));
+        return toResponse(response);
+    }
+
+    /**
+     * Close connections that have expired or been idle for longer than the configured
+     * <code>ConnIdleEvictTimeMilliSeconds</code>.
+     */
+    public void evictIdleConnections() {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    @Monitor(name = "leased", type = DataSourceType.GAUGE)
+    public int getLeased() {
+        return connectionManager.getTotalStats().getLeased();
+    }
+
+    @Monitor(name = "available", type = DataSourceType.GAUGE)
+    public int getAvailable() {
+        return connectionManager.getTotalStats().getAvailable();
+    }
+
+    @Monitor(name = "pending", type = DataSourceType.GAUGE)
+    public int getPending() {
+        return connectionManager.getTotalStats().getPending();
+    }
+
+    @Monitor(name = "max", type = DataSourceType.GAUGE)
+    public int getMax() {
+        return connectionManager.getTotalStats().getMax();
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    private HttpUriRequest toHttpRequest(Request request, Request.Options options) {
+        RequestBuilder builder = RequestBuilder.create(request.method())
+                .setUri(request.url())
+                .setConfig(RequestConfig.custom()
+                        .setConnectTimeout(options.connectTimeoutMillis())
+                        .setSocketTimeout(options.readTimeoutMillis()).build());
+        for (Map.Entry<String, Collection<String>> header : request.headers().entrySet()) {
+            // The length is set from the entity
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(header.getKey())) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                builder.addHeader(header.getKey(), value);
+            }
+        }
+        if (request.body() != null) {
+            builder.setEntity(new ByteArrayEntity(request.body()));
+        }
+        return builder.build();
+    }
+
+    private Response toResponse(HttpResponse response) throws IOException {
+        Map<String, Collection<String>> headers = new LinkedHashMap<>();
+        for (Header header : response.getAllHeaders()) {
+            Collection<String> values = headers.get(header.getName());
+            if (values == null) {
+                values = new ArrayList<>();
+                headers.put(header.getName(), values);
+            }
+            values.add(header.getValue());
+        }
+        HttpEntity entity = response.getEntity();
+        InputStream body = null;
+        Integer length = null;
+        if (entity != null) {
+            // Closing the body releases the connection back to the pool
+            body = entity.getContent();
+            long contentLength = entity.getContentLength();
+            if (contentLength >= 0 && contentLength <= Integer.MAX_VALUE) {
+                length = (int) contentLength;
+            }
+        }
+        return Response.create(response.getStatusLine().getStatusCode(), response
+                .getStatusLine().getReasonPhrase(), headers, body, length);
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.springframework.cloud.netflix.feign.ribbon;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import com.netflix.client.config.CommonClientConfigKey;
+import com.netflix.client.config.IClientConfig;
+import com.netflix.servo.monitor.Monitors;
+
+import feign.Client;
+
+/**
+ * Creates a {@link PooledHttpClient} (with a connection pool of its own) for each Ribbon
+ * client, and evicts idle connections from all the pools in the background. The pool
+ * stats for each client are published through Servo as
+ * <code>Feign_HttpClient_&lt;client&gt;</code>.
+ *
+ * @author Dave Syer
+ */
+@Slf4j
+public class PooledHttpClientFactory implements FeignDelegateFactory, DisposableBean {
+
+    private final ConcurrentMap<String, PooledHttpClient> clients = new ConcurrentHashMap<>();
+
+    private volatile ScheduledExecutorService evictor;
+
+    @Override
+    public Client create(String clientName, IClientConfig config) {
+        PooledHttpClient client = clients.get(clientName);
+        if (client == null) {
+            client = new PooledHttpClient(config);
+            PooledHttpClient existing = clients.putIfAbsent(clientName, client);
+            if (existing != null) {
+                closeQuietly(client);
+                return existing;
+            }
+            Monitors.registerObject("Feign_HttpClient_" + clientName, client);
+            startEvictor(config.getPropertyAsInteger(
+                    CommonClientConfigKey.ConnectionCleanerRepeatInterval, 30000));
+        }
+        return client;
+    }
+
+    @Override
+    public void destroy() {
+        ScheduledExecutorService evictor = this.evictor;
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        Collection<PooledHttpClient> values = new ArrayList<>(clients.values());
+        clients.clear();
+        for (PooledHttpClient client : values) {
+            closeQuietly(client);
+        }
+    }
+
+    private synchronized void startEvictor(long interval) {
+        if (evictor != null) {
+            return;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "feign-connection-evictor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        evictor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                for (PooledHttpClient client : clients.values()) {
+                    client.evictIdleConnections();
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void closeQuietly(PooledHttpClient client) {
+        try {
+            client.close();
+        }
+        catch (IOException e) {
+            log.debug("Could not close HTTP client", e);
+        }
+    }
+
+}
@@ -14,6 +14,11 @@ import com.netflix.client.RetryHandler;
 import com.netflix.client.config.CommonClientConfigKey;
 import com.netflix.client.config.IClientConfig;
 import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.ServerStats;
+
+import org.springframework.cloud.netflix.ribbon.BudgetedRetryHandler;
+import org.springframework.cloud.netflix.ribbon.RetryBudget;
+import org.springframework.cloud.netflix.ribbon.RibbonLoadBalancerContext;
 
 import feign.Client;
 import feign.Request;
@@ -26,6 +31,7 @@ public class RibbonLoadBalancer extends AbstractLoadBalancerAwareClient<RibbonLo
         private final int connectTimeout;
         private final int readTimeout;
         private final IClientConfig clientConfig;
+        private RetryBudget retryBudget;
 
         public RibbonLoadBalancer(Client delegate, ILoadBalancer lb, IClientConfig clientConfig) {
             super(lb, clientConfig);
@@ -36,6 +42,10 @@ public class RibbonLoadBalancer extends AbstractLoadBalancerAwareClient<RibbonLo
             readTimeout = clientConfig.get(CommonClientConfigKey.ReadTimeout);
         }
 
+        public void setRetryBudget(RetryBudget retryBudget) {
+            this.retryBudget = retryBudget;
+        }
+
         @Override
         public RibbonResponse execute(RibbonRequest request, IClientConfig configOverride) throws IOException {
             Request.Options options;
@@ -48,17 +58,27 @@ public class RibbonLoadBalancer extends AbstractLoadBalancerAwareClient<RibbonLo
             return new RibbonResponse(request.getUri(), response);
         }
 
+        @Override
+        public void noteRequestCompletion(ServerStats stats, Object response, Throwable e, long responseTime, RetryHandler errorHandler) {
+            super.noteRequestCompletion(stats, response, e, responseTime, errorHandler);
+            if (e == null && retryBudget != null) {
+                retryBudget.deposit();
+            }
+            RibbonLoadBalancerContext.notifyRule(getLoadBalancer(), stats, responseTime, e);
+        }
+
         @Override
         public RequestSpecificRetryHandler getRequestSpecificRetryHandler(
                 RibbonRequest request, IClientConfig requestConfig) {
+            RequestSpecificRetryHandler handler;
             if (clientConfig.get(CommonClientConfigKey.OkToRetryOnAllOperations, false)) {
-                return new RequestSpecificRetryHandler(true, true, this.getRetryHandler(), requestConfig);
-            }
-            if (!request.toRequest().method().equals("GET")) {
-                return new RequestSpecificRetryHandler(true, false, this.getRetryHandler(), requestConfig);
+                handler = new RequestSpecificRetryHandler(true, true, this.getRetryHandler(), requestConfig);
+            } else if (!request.toRequest().method().equals("GET")) {
+                handler = new RequestSpecificRetryHandler(true, false, this.getRetryHandler(), requestConfig);
             } else {
-                return new RequestSpecificRetryHandler(true, true, this.getRetryHandler(), requestConfig);
+                handler = new RequestSpecificRetryHandler(true, true, this.getRetryHandler(), requestConfig);
             }
+            return retryBudget == null ? handler : new BudgetedRetryHandler(handler, retryBudget);
         }
 
         static class RibbonRequest extends ClientRequest implements Cloneable {
@@ -66,8 +86,13 @@ public class RibbonLoadBalancer extends AbstractLoadBalancerAwareClient<RibbonLo
             private final Request request;
 
             RibbonRequest(Request request, URI uri) {
+                this(request, uri, null);
+            }
+
+            RibbonRequest(Request request, URI uri, Object loadBalancerKey) {
                 this.request = request;
                 setUri(uri);
+                setLoadBalancerKey(loadBalancerKey);
             }
 
             Request toRequest() {
@@ -80,7 +105,7 @@ public class RibbonLoadBalancer extends AbstractLoadBalancerAwareClient<RibbonLo
             }
 
             public Object clone() {
-                return new RibbonRequest(request, getUri());
+                return new RibbonRequest(request, getUri(), getLoadBalancerKey());
             }
         }
 
@@ -8,13 +8,15 @@ import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLSocketFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.netflix.ribbon.ConsistentHashKey;
 import org.springframework.cloud.netflix.ribbon.RibbonClientPreprocessor;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import com.google.common.base.Throwables;
 import com.netflix.client.ClientException;
-import com.netflix.client.ClientFactory;
-import com.netflix.client.config.IClientConfig;
-import com.netflix.loadbalancer.ILoadBalancer;
 
 import dagger.Lazy;
 import feign.Client;
@@ -24,7 +26,7 @@ import feign.Response;
 /**
  * @author: Julien Roy
  */
-public class RibbonLoadBalancerClient implements Client {
+public class RibbonLoadBalancerClient implements Client, ApplicationListener<ContextClosedEvent> {
 
     private Client defaultClient = new Default(
         new Lazy<SSLSocketFactory>() {
@@ -39,6 +41,24 @@ public class RibbonLoadBalancerClient implements Client {
             }
     });
 
+    private final FeignLoadBalancerCache loadBalancers;
+
+    /**
+     * Create a client that looks up the load balancers in the static Ribbon
+     * {@link com.netflix.client.ClientFactory}.
+     */
+    public RibbonLoadBalancerClient() {
+        this(null);
+    }
+
+    /**
+     * Create a client that looks up the load balancers in the {@link SpringClientFactory},
+     * so that <code>@RibbonClient</code> configuration applies.
+     */
+    public RibbonLoadBalancerClient(SpringClientFactory clientFactory) {
+        this.loadBalancers = new FeignLoadBalancerCache(clientFactory);
+    }
+
     @Override
     public Response execute(Request request, Request.Options options) throws IOException {
         try {
@@ -46,7 +66,7 @@ public class RibbonLoadBalancerClient implements Client {
             URI asUri = URI.create(request.url());
             String clientName = asUri.getHost();
             URI uriWithoutSchemeAndPort = URI.create(request.url().replace(asUri.getScheme() + "://" + asUri.getHost(), ""));
-            RibbonLoadBalancer.RibbonRequest ribbonRequest = new RibbonLoadBalancer.RibbonRequest(request, uriWithoutSchemeAndPort);
+            RibbonLoadBalancer.RibbonRequest ribbonRequest = new RibbonLoadBalancer.RibbonRequest(request, uriWithoutSchemeAndPort, loadBalancerKey(clientName, request, asUri));
             return lbClient(clientName).executeWithLoadBalancer(ribbonRequest).toResponse();
 
         } catch (ClientException e) {
@@ -58,8 +78,28 @@ public class RibbonLoadBalancerClient implements Client {
     }
 
     private RibbonLoadBalancer lbClient(String clientName) {
-        IClientConfig config = ClientFactory.getNamedConfig(clientName);
-        ILoadBalancer lb = ClientFactory.getNamedLoadBalancer(clientName);
-        return new RibbonLoadBalancer(defaultClient, lb, config);
+        return loadBalancers.get(clientName, defaultClient);
+    }
+
+    private Object loadBalancerKey(String clientName, Request request, URI uri) {
+        ConsistentHashKey hashKey = ConsistentHashKey.forClient(clientName);
+        if (hashKey == null) {
+            return null;
+        }
+        return hashKey.loadBalancerKey(uri.getPath(), request.headers(),
+                UriComponentsBuilder.fromUri(uri).build().getQueryParams());
+    }
+
+    /**
+     * Use the factory to create the client that sends the requests for each Ribbon
+     * client, instead of the default one.
+     */
+    public void setDelegateFactory(FeignDelegateFactory delegateFactory) {
+        loadBalancers.setDelegateFactory(delegateFactory);
+    }
+
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        loadBalancers.closed(event.getApplicationContext());
     }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import com.netflix.client.RequestSpecificRetryHandler;
+import com.netflix.client.RetryHandler;
+
+/**
+ * A {@link RetryHandler} that only allows a retry that its delegate allows if the
+ * {@link RetryBudget} has a token to spend on it. It is a
+ * {@link RequestSpecificRetryHandler} so that Ribbon clients can return it for each
+ * request, but all the decisions are made by the delegate.
+ *
+ * @author Dave Syer
+ */
+public class BudgetedRetryHandler extends RequestSpecificRetryHandler {
+
+	private final RetryHandler delegate;
+
+	private final RetryBudget budget;
+
+	public BudgetedRetryHandler(RetryHandler delegate, RetryBudget budget) {
+		super(false, false, delegate, null);
+		this.delegate = delegate;
+		this.budget = budget;
+	}
+
+	@Override
+	public boolean isRetriableException(Throwable e, boolean sameServer) {
+		return this.delegate.isRetriableException(e, sameServer)
+				&& this.budget.tryWithdraw();
+	}
+
+	@Override
+	public boolean isCircuitTrippingException(Throwable e) {
+		return this.delegate.isCircuitTrippingException(e);
+	}
+
+	@Override
+	public int getMaxRetriesOnSameServer() {
+		return this.delegate.getMaxRetriesOnSameServer();
+	}
+
+	@Override
+	public int getMaxRetriesOnNextServer() {
+		return this.delegate.getMaxRetriesOnNextServer();
+	}
+
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.DisposableBean;
+
+import com.google.common.collect.MapMaker;
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.IPing;
+import com.netflix.loadbalancer.PingUrl;
+import com.netflix.loadbalancer.Server;
+
+/**
+ * Checks all the servers of a client at the same time, instead of one after the other
+ * like the Ribbon default. A {@link PingUrl} is sent through a non-blocking HTTP client
+ * that is shared by all Ribbon clients, and the number of checks in flight across all of
+ * them is capped. Other {@link IPing} implementations (e.g. the Eureka status check) are
+ * cheap and local, so they are just called in turn.
+ *
+ * The load balancer still calls its ping for one server after the other, so the strategy
+ * is installed by {@link #wrap(IPing, BaseLoadBalancer) wrapping} the ping: the first
+ * call of a pass checks all the servers, and the rest of the pass is answered from the
+ * results.
+ *
+ * Servers that are currently down are checked on every pass, but a server that was up
+ * when it was last checked is not checked again until the healthy interval has expired.
+ * So the ping interval of the load balancer (<code>NFLoadBalancerPingInterval</code>)
+ * can be set low to bring servers back quickly without multiplying the traffic to the
+ * healthy ones. A server that does not answer within the timeout (or cannot be checked
+ * because the concurrency cap was reached) keeps its previous state.
+ *
+ * @author Dave Syer
+ */
+@Slf4j
+public class ConcurrentPingStrategy implements DisposableBean {
+
+	private static final int PENDING = 0;
+
+	private static final int ALIVE = 1;
+
+	private static final int DEAD = 2;
+
+	private final int maxConcurrent;
+
+	private final Semaphore permits;
+
+	private final long timeout;
+
+	private final long healthyInterval;
+
+	private final Map<Server, Long> lastHealthy = new MapMaker().weakKeys().makeMap();
+
+	private CloseableHttpAsyncClient client;
+
+	/**
+	 * @param maxConcurrent the maximum number of checks in flight for all clients
+	 * @param timeout the time to wait for a pass to complete (milliseconds)
+	 * @param healthyInterval the time between checks of a healthy server (milliseconds)
+	 */
+	public ConcurrentPingStrategy(int maxConcurrent, long timeout, long healthyInterval) {
+		this.maxConcurrent = maxConcurrent;
+		this.permits = new Semaphore(maxConcurrent);
+		this.timeout = timeout;
+		this.healthyInterval = healthyInterval;
+	}
+
+	/**
+	 * Wrap the ping of a load balancer, so that its servers are checked by this strategy.
+	 * Pings other than a {@link PingUrl} are returned unchanged.
+	 */
+	public IPing wrap(IPing ping, BaseLoadBalancer balancer) {
+		if (!(ping instanceof PingUrl)) {
+			return ping;
+		}
+		return new BalancerPing((PingUrl) ping, balancer);
+	}
+
+	/**
+	 * Check the servers, returning true for the ones that are alive.
+	 */
+	public boolean[] pingServers(IPing ping, Server[] servers) {
+		boolean[] results = new boolean[servers.length];
+		if (!(ping instanceof PingUrl)) {
+			for (int i = 0; i < servers.length; i++) {
+				results[i] = isAlive(ping, servers[i]);
+			}
+			return results;
+		}
+		PingUrl url = (PingUrl) ping;
+		long now = System.currentTimeMillis();
+		long deadline = now + this.timeout;
+		AtomicIntegerArray states = new AtomicIntegerArray(servers.length);
+		CountDownLatch latch = new CountDownLatch(servers.length);
+		try {
+			for (int i = 0; i < servers.length; i++) {
+				Server server = servers[i];
+				if (server.isAlive() && !isDue(server, now)) {
+					states.set(i, ALIVE);
+					latch.countDown();
+				}
+				else if (this.permits.tryAcquire(
+						Math.max(0, deadline - System.currentTimeMillis()),
+						TimeUnit.MILLISECONDS)) {
+					ping(url, server, new Result(states, i, latch));
+				}
+				else {
+					// No room left, so keep the previous state
+					latch.countDown();
+				}
+			}
+			latch.await(Math.max(0, deadline - System.currentTimeMillis()),
+					TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		now = System.currentTimeMillis();
+		for (int i = 0; i < servers.length; i++) {
+			int state = states.get(i);
+			results[i] = state == PENDING ? servers[i].isAlive() : state == ALIVE;
+			if (state == DEAD || state == ALIVE && !servers[i].isAlive()) {
+				// Failed or only just recovered, so check again on the next pass
+				this.lastHealthy.remove(servers[i]);
+			}
+			else if (state == ALIVE && isDue(servers[i], now)) {
+				this.lastHealthy.put(servers[i], now);
+			}
+		}
+		return results;
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		CloseableHttpAsyncClient client;
+		synchronized (this) {
+			client = this.client;
+			this.client = null;
+		}
+		if (client != null) {
+			client.close();
+		}
+	}
+
+	/**
+	 * Send a single check to the server and call back with the result (true if the server
+	 * is alive). The callback must be called exactly once.
+	 */
+	protected void ping(PingUrl ping, final Server server,
+			final FutureCallback<Boolean> callback) {
+		String scheme = ping.isSecure() ? "https://" : "http://";
+		String append = ping.getPingAppendString() == null ? "" : ping
+				.getPingAppendString();
+		final String expected = ping.getExpectedContent();
+		try {
+			getClient().execute(new HttpGet(scheme + server.getId() + append),
+					new FutureCallback<HttpResponse>() {
+						@Override
+						public void completed(HttpResponse response) {
+							boolean alive = response.getStatusLine().getStatusCode() == 200;
+							try {
+								String content = EntityUtils.toString(response
+										.getEntity());
+								if (alive && expected != null) {
+									alive = expected.equals(content);
+								}
+							}
+							catch (IOException e) {
+								alive = false;
+							}
+							callback.completed(alive);
+						}
+
+						@Override
+						public void failed(Exception ex) {
+							log.debug("Ping failed for " + server.getId(), ex);
+							callback.completed(false);
+						}
+
+						@Override
+						public void cancelled() {
+							callback.cancelled();
+						}
+					});
+		}
+		catch (RuntimeException e) {
+			callback.failed(e);
+		}
+	}
+
+	private synchronized CloseableHttpAsyncClient getClient() {
+		if (this.client == null) {
+			int timeout = (int) this.timeout;
+			this.client = HttpAsyncClients
+					.custom()
+					.setDefaultRequestConfig(
+							RequestConfig.custom().setConnectTimeout(timeout)
+									.setSocketTimeout(timeout)
+									.setConnectionRequestTimeout(timeout).build())
+					.setMaxConnTotal(this.maxConcurrent)
+					.setMaxConnPerRoute(this.maxConcurrent)
+					.build();
+			this.client.start();
+		}
+		return this.client;
+	}
+
+	private boolean isDue(Server server, long now) {
+		Long last = this.lastHealthy.get(server);
+		return last == null || now - last >= this.healthyInterval;
+	}
+
+	private boolean isAlive(IPing ping, Server server) {
+		try {
+			return ping.isAlive(server);
+		}
+		catch (Exception e) {
+			log.debug("Ping failed for " + server.getId(), e);
+			return false;
+		}
+	}
+
+	/**
+	 * Answers the load balancer from the results of a pass over all its servers, which is
+	 * started by the first server of each pass.
+	 */
+	private class BalancerPing implements IPing {
+
+		private final PingUrl ping;
+
+		private final BaseLoadBalancer balancer;
+
+		private final Map<Server, Boolean> results = new HashMap<>();
+
+		private long checked;
+
+		public BalancerPing(PingUrl ping, BaseLoadBalancer balancer) {
+			this.ping = ping;
+			this.balancer = balancer;
+		}
+
+		@Override
+		public synchronized boolean isAlive(Server server) {
+			Boolean alive = this.results.remove(server);
+			// Leftovers from a pass that was cut short are not reused
+			if (alive == null
+					|| System.currentTimeMillis() - this.checked > ConcurrentPingStrategy.this.timeout) {
+				List<Server> servers = this.balancer.getServerList(false);
+				boolean[] alives = pingServers(this.ping,
+						servers.toArray(new Server[servers.size()]));
+				this.checked = System.currentTimeMillis();
+				this.results.clear();
+				for (int i = 0; i < alives.length; i++) {
+					this.results.put(servers.get(i), alives[i]);
+				}
+				alive = this.results.remove(server);
+			}
+			if (alive == null) {
+				// Not one of the servers of the load balancer (any more)
+				return pingServers(this.ping, new Server[] { server })[0];
+			}
+			return alive;
+		}
+
+	}
+
+	private class Result implements FutureCallback<Boolean> {
+
+		private final AtomicIntegerArray states;
+
+		private final int index;
+
+		private final CountDownLatch latch;
+
+		public Result(AtomicIntegerArray states, int index, CountDownLatch latch) {
+			this.states = states;
+			this.index = index;
+			this.latch = latch;
+		}
+
+		@Override
+		public void completed(Boolean alive) {
+			finish(alive ? ALIVE : DEAD);
+		}
+
+		@Override
+		public void failed(Exception ex) {
+			finish(DEAD);
+		}
+
+		@Override
+		public void cancelled() {
+			finish(PENDING);
+		}
+
+		private void finish(int state) {
+			ConcurrentPingStrategy.this.permits.release();
+			this.states.compareAndSet(this.index, PENDING, state);
+			this.latch.countDown();
+		}
+
+	}
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
+
+import com.netflix.config.DynamicPropertyFactory;
+import com.netflix.config.DynamicStringProperty;
+
+/**
+ * The part of a request that is used as the load balancer key for a
+ * {@link ConsistentHashRule}, configured per client with
+ * <code>&lt;client&gt;.ribbon.ConsistentHashKey</code> as <code>header:&lt;name&gt;</code>,
+ * <code>query:&lt;name&gt;</code> or <code>path:&lt;index&gt;</code> (the index of a
+ * path segment, starting at 0). Used by Zuul routes and Feign clients to supply the key.
+ *
+ * @author Dave Syer
+ */
+public class ConsistentHashKey {
+
+	public static enum Source {
+		HEADER, QUERY, PATH
+	}
+
+	private static final ConcurrentMap<String, Setting> settings = new ConcurrentHashMap<>();
+
+	private final Source source;
+
+	private final String name;
+
+	private final int index;
+
+	public ConsistentHashKey(Source source, String name) {
+		this.source = source;
+		this.name = name;
+		this.index = source == Source.PATH ? Integer.parseInt(name) : -1;
+	}
+
+	/**
+	 * The key configured for the named client, or null if there is none (or it cannot be
+	 * parsed).
+	 */
+	public static ConsistentHashKey forClient(String clientName) {
+		// Called for every request, so the property and the parsed key are cached
+		Setting setting = settings.get(clientName);
+		if (setting == null) {
+			setting = new Setting(clientName);
+			Setting existing = settings.putIfAbsent(clientName, setting);
+			if (existing != null) {
+				setting = existing;
+			}
+		}
+		return setting.get();
+	}
+
+	static ConsistentHashKey parse(String value) {
+		if (!StringUtils.hasText(value)) {
+			return null;
+		}
+		int colon = value.indexOf(':');
+		if (colon <= 0 || colon == value.length() - 1) {
+			return null;
+		}
+		try {
+			return new ConsistentHashKey(Source.valueOf(value.substring(0, colon).trim()
+					.toUpperCase()), value.substring(colon + 1).trim());
+		}
+		catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Extract the key from a request.
+	 *
+	 * @param path the request path
+	 * @param headers the request headers
+	 * @param params the query parameters
+	 * @return the key or null if the request does not have one
+	 */
+	public String resolve(String path, Map<String, ? extends Collection<String>> headers,
+			Map<String, ? extends Collection<String>> params) {
+		switch (this.source) {
+		case HEADER:
+			return first(headers, this.name, true);
+		case QUERY:
+			return first(params, this.name, false);
+		default:
+			return segment(path, this.index);
+		}
+	}
+
+	/**
+	 * Extract the key from a request as a load balancer key for the
+	 * {@link ConsistentHashRule}.
+	 *
+	 * @return the key or null if the request does not have one
+	 * @see #resolve(String, Map, Map)
+	 */
+	public Value loadBalancerKey(String path,
+			Map<String, ? extends Collection<String>> headers,
+			Map<String, ? extends Collection<String>> params) {
+		String value = resolve(path, headers, params);
+		return value == null ? null : new Value(value);
+	}
+
+	private static String first(Map<String, ? extends Collection<String>> values,
+			String name, boolean ignoreCase) {
+		if (values == null) {
+			return null;
+		}
+		for (Entry<String, ? extends Collection<String>> entry : values.entrySet()) {
+			if (ignoreCase ? name.equalsIgnoreCase(entry.getKey()) : name.equals(entry
+					.getKey())) {
+				Collection<String> list = entry.getValue();
+				return list == null || list.isEmpty() ? null : list.iterator().next();
+			}
+		}
+		return null;
+	}
+
+	private static String segment(String path, int index) {
+		if (path == null || index < 0) {
+			return null;
+		}
+		String[] segments = StringUtils.tokenizeToStringArray(path, "/");
+		return index < segments.length ? segments[index] : null;
+	}
+
+	/**
+	 * A load balancer key that was extracted from a request. The
+	 * {@link ConsistentHashRule} only hashes keys of this type, so the keys that Ribbon
+	 * uses by convention when there is no key (e.g. <code>"default"</code>) never end up
+	 * on one server, and a request can still have <code>"default"</code> as its key.
+	 */
+	public static final class Value {
+
+		private final String value;
+
+		public Value(String value) {
+			this.value = value;
+		}
+
+		public String getValue() {
+			return this.value;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Value && this.value.equals(((Value) obj).value);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.value.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return this.value;
+		}
+
+	}
+
+	/**
+	 * The configured key of one client, parsed again only when the property changes.
+	 */
+	private static class Setting {
+
+		private final DynamicStringProperty property;
+
+		private volatile String value;
+
+		private volatile ConsistentHashKey key;
+
+		Setting(String clientName) {
+			this.property = DynamicPropertyFactory.getInstance().getStringProperty(
+					clientName + ".ribbon.ConsistentHashKey", null);
+		}
+
+		ConsistentHashKey get() {
+			String current = this.property.get();
+			if (!ObjectUtils.nullSafeEquals(current, this.value)) {
+				ConsistentHashKey parsed = parse(current);
+				// Benign race: any thread parses the same value to an equivalent key
+				this.key = parsed;
+				this.value = current;
+				return parsed;
+			}
+			return this.key;
+		}
+
+	}
+
+}
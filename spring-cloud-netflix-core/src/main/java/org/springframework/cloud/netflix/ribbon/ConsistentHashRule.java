@@ -0,0 +1,331 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.netflix.client.config.IClientConfig;
+import com.netflix.config.DynamicPropertyFactory;
+import com.netflix.loadbalancer.AbstractLoadBalancer;
+import com.netflix.loadbalancer.AbstractLoadBalancerRule;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.LoadBalancerStats;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerStats;
+
+/**
+ * A rule that sends all the requests with the same load balancer key to the same server
+ * (as long as it is up), so that servers with local caches keep their hit rates. The
+ * servers are placed on a hash ring with
+ * <code>&lt;client&gt;.ribbon.ConsistentHashVirtualNodes</code> (default 100) points each,
+ * and a key goes to the first server clockwise from its hash that has fewer active
+ * requests than <code>ConsistentHashLoadFactor</code> (default 1.25) times the average,
+ * so that a hot key cannot overload one server ("consistent hashing with bounded loads").
+ * The average is taken from a total that is summed at most every 100 milliseconds, so
+ * choosing a server does not have to visit every server.
+ *
+ * The ring is rebuilt in the background (checking for changes in the server list every
+ * <code>ConsistentHashRefreshInterval</code> milliseconds, default 1000), never while
+ * choosing a server. Requests without a {@link ConsistentHashKey.Value key} (or before
+ * the ring is ready) are balanced like the {@link PowerOfTwoChoicesRule}. The key is
+ * supplied by Zuul routes and Feign clients from the part of the request configured
+ * with {@link ConsistentHashKey}.
+ *
+ * @author Dave Syer
+ */
+@Slf4j
+public class ConsistentHashRule extends AbstractLoadBalancerRule {
+
+	public static final int DEFAULT_VIRTUAL_NODES = 100;
+
+	public static final double DEFAULT_LOAD_FACTOR = 1.25;
+
+	public static final long DEFAULT_REFRESH_INTERVAL = 1000;
+
+	private static final HashFunction HASH = Hashing.murmur3_128();
+
+	private static final ScheduledExecutorService scheduler = Executors
+			.newSingleThreadScheduledExecutor(daemonThreadFactory());
+
+	private final PowerOfTwoChoicesRule fallback = new PowerOfTwoChoicesRule();
+
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
+	private volatile Ring ring;
+
+	private int virtualNodes = DEFAULT_VIRTUAL_NODES;
+
+	private double loadFactor = DEFAULT_LOAD_FACTOR;
+
+	private long refreshInterval = DEFAULT_REFRESH_INTERVAL;
+
+	public ConsistentHashRule() {
+	}
+
+	public ConsistentHashRule(ILoadBalancer loadBalancer) {
+		setLoadBalancer(loadBalancer);
+	}
+
+	@Override
+	public void initWithNiwsConfig(IClientConfig clientConfig) {
+		DynamicPropertyFactory properties = DynamicPropertyFactory.getInstance();
+		String prefix = clientConfig.getClientName() + ".ribbon.";
+		this.virtualNodes = Math.max(
+				properties.getIntProperty(prefix + "ConsistentHashVirtualNodes",
+						DEFAULT_VIRTUAL_NODES).get(), 1);
+		this.loadFactor = Math.max(
+				properties.getDoubleProperty(prefix + "ConsistentHashLoadFactor",
+						DEFAULT_LOAD_FACTOR).get(), 1.0);
+		this.refreshInterval = Math.max(
+				properties.getLongProperty(prefix + "ConsistentHashRefreshInterval",
+						DEFAULT_REFRESH_INTERVAL).get(), 1);
+	}
+
+	@Override
+	public void setLoadBalancer(ILoadBalancer loadBalancer) {
+		super.setLoadBalancer(loadBalancer);
+		this.fallback.setLoadBalancer(loadBalancer);
+	}
+
+	@Override
+	public Server choose(Object key) {
+		ILoadBalancer loadBalancer = getLoadBalancer();
+		if (loadBalancer == null) {
+			return null;
+		}
+		if (this.scheduled.compareAndSet(false, true)) {
+			RefreshTask.schedule(this);
+		}
+		Ring ring = this.ring;
+		if (ring == null || !(key instanceof ConsistentHashKey.Value)) {
+			return this.fallback.choose(key);
+		}
+		return choose(ring, hash(((ConsistentHashKey.Value) key).getValue()),
+				getLoadBalancerStats(loadBalancer));
+	}
+
+	private Server choose(Ring ring, long hash, LoadBalancerStats stats) {
+		int start = Arrays.binarySearch(ring.hashes, hash);
+		if (start < 0) {
+			start = -start - 1;
+		}
+		int size = ring.hashes.length;
+		Server first = ring.servers[ring.owners[start % size]];
+		if (stats == null) {
+			return first;
+		}
+		long now = System.currentTimeMillis();
+		double capacity = Math.ceil(this.loadFactor * (ring.getTotalLoad(stats, now) + 1)
+				/ ring.servers.length);
+		Server candidate = null;
+		// Each server has many points on the ring, but only needs checking once
+		boolean[] visited = new boolean[ring.servers.length];
+		int remaining = ring.servers.length;
+		for (int i = 0; i < size && remaining > 0; i++) {
+			int owner = ring.owners[(start + i) % size];
+			if (visited[owner]) {
+				continue;
+			}
+			visited[owner] = true;
+			remaining--;
+			Server server = ring.servers[owner];
+			if (!server.isAlive()) {
+				continue;
+			}
+			ServerStats serverStats = stats.getSingleServerStat(server);
+			if (serverStats.isCircuitBreakerTripped(now)) {
+				continue;
+			}
+			if (candidate == null) {
+				candidate = server;
+			}
+			if (serverStats.getActiveRequestsCount(now) < capacity) {
+				return server;
+			}
+		}
+		return candidate != null ? candidate : first;
+	}
+
+	/**
+	 * Rebuild the ring if the reachable servers have changed.
+	 */
+	void refresh() {
+		ILoadBalancer loadBalancer = getLoadBalancer();
+		if (loadBalancer == null) {
+			return;
+		}
+		List<Server> servers = loadBalancer.getServerList(true);
+		Set<String> ids = new HashSet<String>();
+		for (Server server : servers) {
+			ids.add(server.getId());
+		}
+		Ring ring = this.ring;
+		if (ring != null && ring.ids.equals(ids)) {
+			return;
+		}
+		this.ring = ids.isEmpty() ? null : new Ring(servers, ids, this.virtualNodes);
+	}
+
+	private static long hash(String value) {
+		return HASH.hashString(value, Charsets.UTF_8).asLong();
+	}
+
+	private static LoadBalancerStats getLoadBalancerStats(ILoadBalancer loadBalancer) {
+		if (loadBalancer instanceof AbstractLoadBalancer) {
+			return ((AbstractLoadBalancer) loadBalancer).getLoadBalancerStats();
+		}
+		return null;
+	}
+
+	private static CustomizableThreadFactory daemonThreadFactory() {
+		CustomizableThreadFactory factory = new CustomizableThreadFactory(
+				"ConsistentHashRule-");
+		factory.setDaemon(true);
+		return factory;
+	}
+
+	/**
+	 * Immutable ring: sorted hashes and the (index of the) server at each point. It also
+	 * holds the total number of active requests across its servers, which is summed at
+	 * most once every {@link #LOAD_INTERVAL} milliseconds instead of on every request.
+	 */
+	private static class Ring {
+
+		private static final long LOAD_INTERVAL = 100;
+
+		private final Set<String> ids;
+
+		private final AtomicLong loadTimestamp = new AtomicLong();
+
+		private volatile long totalLoad;
+
+		private final Server[] servers;
+
+		private final long[] hashes;
+
+		private final int[] owners;
+
+		Ring(List<Server> list, Set<String> ids, int virtualNodes) {
+			this.ids = ids;
+			this.servers = list.toArray(new Server[list.size()]);
+			int size = this.servers.length * virtualNodes;
+			Point[] points = new Point[size];
+			int index = 0;
+			for (int owner = 0; owner < this.servers.length; owner++) {
+				String id = this.servers[owner].getId();
+				for (int i = 0; i < virtualNodes; i++) {
+					points[index++] = new Point(hash(id + "#" + i), owner);
+				}
+			}
+			Arrays.sort(points);
+			this.hashes = new long[size];
+			this.owners = new int[size];
+			for (int i = 0; i < size; i++) {
+				this.hashes[i] = points[i].hash;
+				this.owners[i] = points[i].owner;
+			}
+		}
+
+		long getTotalLoad(LoadBalancerStats stats, long now) {
+			long last = this.loadTimestamp.get();
+			// Only one thread sums the load, the others use the last total
+			if (now - last >= LOAD_INTERVAL && this.loadTimestamp.compareAndSet(last, now)) {
+				long total = 0;
+				for (Server server : this.servers) {
+					total += stats.getSingleServerStat(server).getActiveRequestsCount(now);
+				}
+				this.totalLoad = total;
+			}
+			return this.totalLoad;
+		}
+
+	}
+
+	private static class Point implements Comparable<Point> {
+
+		private final long hash;
+
+		private final int owner;
+
+		Point(long hash, int owner) {
+			this.hash = hash;
+			this.owner = owner;
+		}
+
+		@Override
+		public int compareTo(Point other) {
+			return Long.compare(this.hash, other.hash);
+		}
+
+	}
+
+	/**
+	 * Refreshes a rule until it is garbage collected (a rule has no lifecycle of its own).
+	 */
+	private static class RefreshTask implements Runnable {
+
+		private final WeakReference<ConsistentHashRule> rule;
+
+		private volatile ScheduledFuture<?> future;
+
+		private RefreshTask(ConsistentHashRule rule) {
+			this.rule = new WeakReference<ConsistentHashRule>(rule);
+		}
+
+		static void schedule(ConsistentHashRule rule) {
+			RefreshTask task = new RefreshTask(rule);
+			task.future = scheduler.scheduleWithFixedDelay(task, 0,
+					rule.refreshInterval, TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public void run() {
+			ConsistentHashRule rule = this.rule.get();
+			if (rule == null) {
+				ScheduledFuture<?> future = this.future;
+				if (future != null) {
+					future.cancel(false);
+				}
+				return;
+			}
+			try {
+				rule.refresh();
+			}
+			catch (Exception e) {
+				log.warn("Could not refresh consistent hash ring", e);
+			}
+		}
+
+	}
+
+}
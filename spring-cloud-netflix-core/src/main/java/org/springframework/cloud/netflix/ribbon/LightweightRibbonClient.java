@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import java.util.Collection;
+
+import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.DynamicServerListLoadBalancer;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerListFilter;
+import com.netflix.niws.client.http.RestClient;
+
+/**
+ * The objects that make up a Ribbon client, created directly instead of in an
+ * ApplicationContext of their own. Used by {@link SpringClientFactory} for clients that
+ * have no custom configuration, to save the memory and startup time of a context per
+ * client. The objects are the same as the ones in {@link RibbonClientConfiguration}, and
+ * the (relatively expensive) {@link RestClient} is only created if it is asked for.
+ *
+ * @author Dave Syer
+ */
+class LightweightRibbonClient {
+
+	private final String name;
+
+	private final IClientConfig config;
+
+	private final ServerListFilter<Server> filter;
+
+	private final ILoadBalancer loadBalancer;
+
+	private final RetryBudget retryBudget;
+
+	private final RibbonLoadBalancerContext loadBalancerContext;
+
+	private volatile RestClient restClient;
+
+	LightweightRibbonClient(String name, boolean approximateZoneFromHostname,
+			Collection<RibbonClientPreprocessor> preprocessors, ConcurrentPingStrategy pingStrategy) {
+		this.name = name;
+		for (RibbonClientPreprocessor preprocessor : preprocessors) {
+			preprocessor.preprocess(name);
+		}
+		this.config = RibbonClientConfiguration.createClientConfig(name);
+		this.filter = RibbonClientConfiguration.createServerListFilter(this.config);
+		this.loadBalancer = RibbonClientConfiguration.createLoadBalancer(this.config,
+				this.filter, approximateZoneFromHostname, pingStrategy);
+		this.retryBudget = RibbonClientConfiguration.createRetryBudget(name);
+		this.loadBalancerContext = RibbonClientConfiguration.createLoadBalancerContext(
+				this.loadBalancer, this.config, this.retryBudget);
+	}
+
+	/**
+	 * Get the instance of the given type, or null if this client does not have one (in
+	 * which case the caller can instantiate it with the {@link IClientConfig}).
+	 */
+	<C> C getInstance(Class<C> type) {
+		Object result = null;
+		if (type == IClientConfig.class) {
+			result = this.config;
+		}
+		else if (type == ILoadBalancer.class) {
+			result = this.loadBalancer;
+		}
+		else if (type == RibbonLoadBalancerContext.class) {
+			result = this.loadBalancerContext;
+		}
+		else if (type == RetryBudget.class) {
+			result = this.retryBudget;
+		}
+		else if (type == ServerListFilter.class) {
+			result = this.filter;
+		}
+		else if (type == RestClient.class) {
+			result = getRestClient();
+		}
+		return type.cast(result);
+	}
+
+	void close() {
+		if (this.loadBalancer instanceof DynamicServerListLoadBalancer) {
+			((DynamicServerListLoadBalancer<?>) this.loadBalancer)
+					.stopServerListRefreshing();
+		}
+	}
+
+	private RestClient getRestClient() {
+		RestClient client = this.restClient;
+		if (client == null) {
+			synchronized (this) {
+				client = this.restClient;
+				if (client == null) {
+					client = RibbonClientConfiguration.createRestClient(this.name,
+							this.config, this.loadBalancer, this.retryBudget);
+					this.restClient = client;
+				}
+			}
+		}
+		return client;
+	}
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import com.google.common.collect.MapMaker;
+import com.netflix.client.config.IClientConfig;
+import com.netflix.config.DynamicPropertyFactory;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerStats;
+
+/**
+ * A rule that scores each server by an exponentially weighted moving average of its
+ * response time (jumping straight to any new peak, and decaying over
+ * <code>&lt;client&gt;.ribbon.PeakEwmaDecayTime</code> milliseconds, default 10000)
+ * multiplied by the number of active requests plus one. Like the
+ * {@link PowerOfTwoChoicesRule} it compares two random reachable servers, and picks the
+ * one with the lower score, so a server that is slow or busy is avoided without having
+ * to scan the whole server list.
+ *
+ * The latency is fed in from the load balancer context when each request completes
+ * (see {@link RequestCompletionListener}). Servers in their {@link SlowStart} window get
+ * a penalty added to their score, which is larger the lower their weight. Select the rule for a client with
+ * <code>&lt;client&gt;.ribbon.NFLoadBalancerRuleClassName</code>.
+ *
+ * @author Dave Syer
+ */
+public class PeakEwmaRule extends PowerOfTwoChoicesRule implements
+		RequestCompletionListener {
+
+	public static final int DEFAULT_DECAY_TIME = 10000;
+
+	/**
+	 * Score of a server with active requests that has not reported a latency yet, so
+	 * that new servers are tried but not flooded.
+	 */
+	private static final double PENALTY = Integer.MAX_VALUE >> 16;
+
+	/**
+	 * State shared by all rules keyed by the server stats, which are shared between the
+	 * load balancers for the zones of a client (whose rules are copies of this one).
+	 */
+	private static final ConcurrentMap<ServerStats, Ewma> costs = new MapMaker()
+			.weakKeys().makeMap();
+
+	private volatile double decayTime = DEFAULT_DECAY_TIME;
+
+	public PeakEwmaRule() {
+	}
+
+	public PeakEwmaRule(ILoadBalancer loadBalancer) {
+		super(loadBalancer);
+	}
+
+	@Override
+	public void initWithNiwsConfig(IClientConfig clientConfig) {
+		super.initWithNiwsConfig(clientConfig);
+		setDecayTime(DynamicPropertyFactory
+				.getInstance()
+				.getIntProperty(
+						clientConfig.getClientName() + ".ribbon.PeakEwmaDecayTime",
+						DEFAULT_DECAY_TIME).get());
+	}
+
+	public void setDecayTime(long decayTime) {
+		this.decayTime = Math.max(decayTime, 1);
+	}
+
+	@Override
+	public void noteRequestCompletion(ServerStats stats, long responseTime,
+			Throwable exception) {
+		getEwma(stats).observe(Math.max(responseTime, 0), System.currentTimeMillis(),
+				this.decayTime);
+	}
+
+	@Override
+	protected int compare(Server oneServer, ServerStats one, Server otherServer,
+			ServerStats other, long now) {
+		boolean oneTripped = one.isCircuitBreakerTripped(now);
+		if (oneTripped != other.isCircuitBreakerTripped(now)) {
+			return oneTripped ? 1 : -1;
+		}
+		double oneScore = score(one, now);
+		double otherScore = score(other, now);
+		// The slow start penalty is added rather than multiplied, since a server that is
+		// idle (or has not reported a latency yet) has a score of 0. It is measured in
+		// units of the scores being compared (at least 1ms).
+		double unit = Math.max((oneScore + otherScore) / 2, 1.0);
+		return Double.compare(oneScore + penalty(oneServer, now) * unit, otherScore
+				+ penalty(otherServer, now) * unit);
+	}
+
+	private double penalty(Server server, long now) {
+		return 1 / getWeight(server, now) - 1;
+	}
+
+	/**
+	 * The current score of a server (lower is better).
+	 */
+	protected double score(ServerStats stats, long now) {
+		int active = stats.getActiveRequestsCount(now);
+		Ewma ewma = costs.get(stats);
+		double cost = ewma == null ? 0 : ewma.cost(now, this.decayTime);
+		if (cost == 0 && active > 0) {
+			return PENALTY + active;
+		}
+		return cost * (active + 1);
+	}
+
+	private Ewma getEwma(ServerStats stats) {
+		Ewma ewma = costs.get(stats);
+		if (ewma == null) {
+			ewma = new Ewma(System.currentTimeMillis());
+			Ewma existing = costs.putIfAbsent(stats, ewma);
+			if (existing != null) {
+				ewma = existing;
+			}
+		}
+		return ewma;
+	}
+
+	/**
+	 * Peak sensitive moving average, kept as the raw bits of a double so it can be
+	 * updated without locking.
+	 */
+	static final class Ewma {
+
+		private static final AtomicLongFieldUpdater<Ewma> COST = AtomicLongFieldUpdater
+				.newUpdater(Ewma.class, "cost");
+
+		private volatile long cost = Double.doubleToRawLongBits(0);
+
+		private volatile long stamp;
+
+		Ewma(long now) {
+			this.stamp = now;
+		}
+
+		void observe(double value, long now, double decayTime) {
+			while (true) {
+				long bits = this.cost;
+				double current = Double.longBitsToDouble(bits);
+				double next;
+				if (value > current) {
+					next = value;
+				}
+				else {
+					double weight = weight(now, decayTime);
+					next = current * weight + value * (1 - weight);
+				}
+				if (COST.compareAndSet(this, bits, Double.doubleToRawLongBits(next))) {
+					this.stamp = now;
+					return;
+				}
+			}
+		}
+
+		double cost(long now, double decayTime) {
+			return Double.longBitsToDouble(this.cost) * weight(now, decayTime);
+		}
+
+		private double weight(long now, double decayTime) {
+			return Math.exp(-Math.max(now - this.stamp, 0) / decayTime);
+		}
+
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.AbstractLoadBalancer;
+import com.netflix.loadbalancer.AbstractLoadBalancerRule;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.LoadBalancerStats;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerStats;
+
+/**
+ * A rule that picks two reachable servers at random and chooses the one with fewer
+ * active requests (then the one with the lower average response time), using the
+ * {@link ServerStats} that the load balancer already maintains. Choosing a server takes
+ * constant time and does not lock, whatever the size of the server list. Servers with
+ * a tripped circuit breaker lose to servers without one. With {@link SlowStart} enabled
+ * (<code>&lt;client&gt;.ribbon.SlowStartWindow</code>) the active requests of servers
+ * that have recently started are scaled up by their weight.
+ *
+ * Select it for a client with
+ * <code>&lt;client&gt;.ribbon.NFLoadBalancerRuleClassName</code>.
+ *
+ * @author Dave Syer
+ */
+public class PowerOfTwoChoicesRule extends AbstractLoadBalancerRule {
+
+	private SlowStart slowStart;
+
+	public PowerOfTwoChoicesRule() {
+	}
+
+	public PowerOfTwoChoicesRule(ILoadBalancer loadBalancer) {
+		setLoadBalancer(loadBalancer);
+	}
+
+	@Override
+	public void initWithNiwsConfig(IClientConfig clientConfig) {
+		this.slowStart = SlowStart.create(clientConfig.getClientName());
+	}
+
+	public void setSlowStart(SlowStart slowStart) {
+		this.slowStart = slowStart;
+	}
+
+	/**
+	 * The weight of a server (1 unless it is in its slow start window).
+	 */
+	protected double getWeight(Server server, long now) {
+		return this.slowStart == null ? 1.0 : this.slowStart.getWeight(server, now);
+	}
+
+	@Override
+	public Server choose(Object key) {
+		ILoadBalancer loadBalancer = getLoadBalancer();
+		if (loadBalancer == null) {
+			return null;
+		}
+		List<Server> servers = loadBalancer.getServerList(true);
+		int size = servers.size();
+		if (size == 0) {
+			return null;
+		}
+		if (size == 1) {
+			return servers.get(0);
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(size);
+		int second = random.nextInt(size - 1);
+		if (second >= first) {
+			second++;
+		}
+		Server one = servers.get(first);
+		Server other = servers.get(second);
+		LoadBalancerStats stats = getLoadBalancerStats(loadBalancer);
+		if (stats == null) {
+			return one;
+		}
+		long now = System.currentTimeMillis();
+		return compare(one, stats.getSingleServerStat(one), other,
+				stats.getSingleServerStat(other), now) <= 0 ? one : other;
+	}
+
+	/**
+	 * Compare the load on two servers: negative if the first is less loaded.
+	 */
+	protected int compare(Server oneServer, ServerStats one, Server otherServer,
+			ServerStats other, long now) {
+		boolean oneTripped = one.isCircuitBreakerTripped(now);
+		if (oneTripped != other.isCircuitBreakerTripped(now)) {
+			return oneTripped ? 1 : -1;
+		}
+		int active;
+		if (this.slowStart == null) {
+			active = Integer.compare(one.getActiveRequestsCount(now),
+					other.getActiveRequestsCount(now));
+		}
+		else {
+			active = Double.compare(
+					(one.getActiveRequestsCount(now) + 1) / getWeight(oneServer, now),
+					(other.getActiveRequestsCount(now) + 1) / getWeight(otherServer, now));
+		}
+		if (active != 0) {
+			return active;
+		}
+		return Double.compare(one.getResponseTimeAvg(), other.getResponseTimeAvg());
+	}
+
+	private LoadBalancerStats getLoadBalancerStats(ILoadBalancer loadBalancer) {
+		if (loadBalancer instanceof AbstractLoadBalancer) {
+			return ((AbstractLoadBalancer) loadBalancer).getLoadBalancerStats();
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import com.netflix.loadbalancer.IRule;
+import com.netflix.loadbalancer.ServerStats;
+
+/**
+ * Callback for an {@link IRule} that wants to know when a request to one of its servers
+ * completes. Called from {@link RibbonLoadBalancerContext} (and the Feign load balancer)
+ * after the {@link ServerStats} have been updated.
+ *
+ * @author Dave Syer
+ */
+public interface RequestCompletionListener {
+
+	/**
+	 * @param stats the stats of the server that handled the request
+	 * @param responseTime the response time in milliseconds
+	 * @param exception the error if the request failed (otherwise null)
+	 */
+	void noteRequestCompletion(ServerStats stats, long responseTime, Throwable exception);
+
+}
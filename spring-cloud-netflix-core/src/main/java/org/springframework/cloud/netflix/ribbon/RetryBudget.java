@@ -0,0 +1,164 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.netflix.config.DynamicPropertyFactory;
+import com.netflix.servo.annotations.DataSourceType;
+import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Monitors;
+
+/**
+ * A token bucket that limits the retries for a client to a fraction of its successful
+ * requests: each success deposits <code>ratio</code> of a token (up to
+ * <code>maxTokens</code>) and each retry withdraws a whole one. When the bucket is empty
+ * retries are refused, so a struggling service does not get more load from retries than
+ * the ratio allows. The bucket starts full.
+ *
+ * Configured per client with <code>&lt;client&gt;.ribbon.RetryBudgetEnabled</code>
+ * (default false: no retries are refused), <code>RetryBudgetRatio</code> (default 0.1)
+ * and <code>RetryBudgetMaxTokens</code> (default 10). Use {@link #forClient(String)} to
+ * get the budget that all the users of a client share.
+ *
+ * @author Dave Syer
+ */
+public class RetryBudget {
+
+	private static final ConcurrentMap<String, RetryBudget> budgets = new ConcurrentHashMap<>();
+
+	public static final double DEFAULT_RATIO = 0.1;
+
+	public static final int DEFAULT_MAX_TOKENS = 10;
+
+	/**
+	 * Fixed point scale of the balance (thousandths of a token).
+	 */
+	private static final long SCALE = 1000;
+
+	private final boolean enabled;
+
+	private final long deposit;
+
+	private final long capacity;
+
+	private final AtomicLong balance;
+
+	private final AtomicLong retries = new AtomicLong();
+
+	private final AtomicLong refused = new AtomicLong();
+
+	public RetryBudget(boolean enabled, double ratio, int maxTokens) {
+		this.enabled = enabled;
+		this.deposit = Math.max((long) (ratio * SCALE), 0);
+		this.capacity = Math.max(maxTokens, 1) * SCALE;
+		this.balance = new AtomicLong(this.capacity);
+	}
+
+	/**
+	 * Create a budget from the (Archaius) configuration of the named client.
+	 */
+	public static RetryBudget create(String clientName) {
+		DynamicPropertyFactory properties = DynamicPropertyFactory.getInstance();
+		String prefix = clientName + ".ribbon.";
+		return new RetryBudget(properties.getBooleanProperty(
+				prefix + "RetryBudgetEnabled", false).get(), properties
+				.getDoubleProperty(prefix + "RetryBudgetRatio", DEFAULT_RATIO).get(),
+				properties.getIntProperty(prefix + "RetryBudgetMaxTokens",
+						DEFAULT_MAX_TOKENS).get());
+	}
+
+	/**
+	 * The budget shared by everything that sends requests to the named client, created
+	 * from its configuration on first use. Enabled budgets are published through Servo
+	 * as <code>RetryBudget_&lt;client&gt;</code>.
+	 */
+	public static RetryBudget forClient(String clientName) {
+		RetryBudget budget = budgets.get(clientName);
+		if (budget == null) {
+			budget = create(clientName);
+			RetryBudget existing = budgets.putIfAbsent(clientName, budget);
+			if (existing != null) {
+				return existing;
+			}
+			if (budget.isEnabled()) {
+				Monitors.registerObject("RetryBudget_" + clientName, budget);
+			}
+		}
+		return budget;
+	}
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * Note a successful request.
+	 */
+	public void deposit() {
+		while (true) {
+			long current = this.balance.get();
+			if (current >= this.capacity) {
+				return;
+			}
+			long next = Math.min(current + this.deposit, this.capacity);
+			if (this.balance.compareAndSet(current, next)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Spend a token on a retry if there is one.
+	 *
+	 * @return true if the retry is allowed
+	 */
+	public boolean tryWithdraw() {
+		if (!this.enabled) {
+			this.retries.incrementAndGet();
+			return true;
+		}
+		while (true) {
+			long current = this.balance.get();
+			if (current < SCALE) {
+				this.refused.incrementAndGet();
+				return false;
+			}
+			if (this.balance.compareAndSet(current, current - SCALE)) {
+				this.retries.incrementAndGet();
+				return true;
+			}
+		}
+	}
+
+	@Monitor(name = "RetryBudgetBalance", type = DataSourceType.GAUGE)
+	public double getBalance() {
+		return (double) this.balance.get() / SCALE;
+	}
+
+	@Monitor(name = "RetryBudgetRetries", type = DataSourceType.COUNTER)
+	public long getRetries() {
+		return this.retries.get();
+	}
+
+	@Monitor(name = "RetryBudgetRefused", type = DataSourceType.COUNTER)
+	public long getRefused() {
+		return this.refused.get();
+	}
+
+}
@@ -0,0 +1,129 @@
+package org.springframework.cloud.netflix.ribbon;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.AsyncClientHttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import com.google.common.base.Throwables;
+
+/**
+ * An {@link AsyncClientHttpRequestFactory} that treats the host of each request URI as a
+ * service id, chooses an instance of it with the {@link LoadBalancerClient} and sends
+ * the request there with a delegate (non-blocking) request factory. With a
+ * {@link RibbonLoadBalancerClient} the load balancer stats are recorded when the response
+ * future completes. This is the
+ * asynchronous counterpart of the {@link RibbonInterceptor}.
+ *
+ * @author Spencer Gibb
+ * @author Dave Syer
+ */
+public class RibbonAsyncClientHttpRequestFactory implements AsyncClientHttpRequestFactory {
+
+	private final LoadBalancerClient loadBalancer;
+
+	private final AsyncClientHttpRequestFactory delegate;
+
+	public RibbonAsyncClientHttpRequestFactory(LoadBalancerClient loadBalancer,
+			AsyncClientHttpRequestFactory delegate) {
+		this.loadBalancer = loadBalancer;
+		this.delegate = delegate;
+	}
+
+	@Override
+	public AsyncClientHttpRequest createAsyncRequest(URI uri, HttpMethod httpMethod)
+			throws IOException {
+		return new RibbonAsyncClientHttpRequest(uri, httpMethod);
+	}
+
+	private class RibbonAsyncClientHttpRequest implements AsyncClientHttpRequest {
+
+		private final URI uri;
+
+		private final HttpMethod method;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+
+		private boolean executed = false;
+
+		public RibbonAsyncClientHttpRequest(URI uri, HttpMethod method) {
+			this.uri = uri;
+			this.method = method;
+		}
+
+		@Override
+		public HttpMethod getMethod() {
+			return this.method;
+		}
+
+		@Override
+		public URI getURI() {
+			return this.uri;
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.executed ? HttpHeaders.readOnlyHttpHeaders(this.headers)
+					: this.headers;
+		}
+
+		@Override
+		public OutputStream getBody() throws IOException {
+			Assert.state(!this.executed, "ClientHttpRequest already executed");
+			return this.body;
+		}
+
+		@Override
+		public ListenableFuture<ClientHttpResponse> executeAsync() throws IOException {
+			Assert.state(!this.executed, "ClientHttpRequest already executed");
+			this.executed = true;
+			final HttpHeaders headers = this.headers;
+			final byte[] bytes = this.body.toByteArray();
+			LoadBalancerRequest<ListenableFuture<ClientHttpResponse>> send = new LoadBalancerRequest<ListenableFuture<ClientHttpResponse>>() {
+				@Override
+				public ListenableFuture<ClientHttpResponse> apply(ServiceInstance instance)
+						throws Exception {
+					AsyncClientHttpRequest request = delegate.createAsyncRequest(
+							loadBalancer.reconstructURI(instance, uri), method);
+					request.getHeaders().putAll(headers);
+					if (bytes.length > 0) {
+						StreamUtils.copy(bytes, request.getBody());
+					}
+					return request.executeAsync();
+				}
+			};
+			String serviceId = this.uri.getHost();
+			if (loadBalancer instanceof RibbonLoadBalancerClient) {
+				return ((RibbonLoadBalancerClient) loadBalancer).executeAsync(serviceId,
+						send);
+			}
+			// Another LoadBalancerClient can still choose the server, but it has no
+			// non-blocking way to record the stats
+			try {
+				return send.apply(loadBalancer.choose(serviceId));
+			}
+			catch (IOException e) {
+				throw e;
+			}
+			catch (Exception e) {
+				throw Throwables.propagate(e);
+			}
+		}
+
+	}
+
+}
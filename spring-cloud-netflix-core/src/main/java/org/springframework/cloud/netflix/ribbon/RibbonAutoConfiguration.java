@@ -1,20 +1,34 @@
 package org.springframework.cloud.netflix.ribbon;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
 import org.springframework.cloud.netflix.eureka.EurekaClientAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.HttpComponentsAsyncClientHttpRequestFactory;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.RestTemplate;
 
 import com.netflix.client.IClient;
+import com.netflix.client.config.CommonClientConfigKey;
+import com.netflix.client.config.DefaultClientConfigImpl;
+import com.netflix.client.config.IClientConfig;
 
 /**
  * Auto configuration for Ribbon (client side load balancing)
@@ -30,10 +44,14 @@ public class RibbonAutoConfiguration {
 	@Autowired(required=false)
     private List<RibbonClientSpecification> configurations = new ArrayList<>();
 
+	@Value("${ribbon.lightweight.enabled:false}")
+	private boolean lightweight = false;
+
 	@Bean
     public SpringClientFactory springClientFactory() {
         SpringClientFactory factory = new SpringClientFactory();
         factory.setConfigurations(configurations);
+		factory.setLightweight(lightweight);
 		return factory;
     }
 
@@ -53,9 +71,91 @@ public class RibbonAutoConfiguration {
 		return new RibbonLoadBalancerClient(springClientFactory());
 	}
 
+	@Bean
+	public RibbonEndpoint ribbonEndpoint() {
+		return new RibbonEndpoint(springClientFactory());
+	}
+
 	@Bean
 	public RibbonInterceptor ribbonInterceptor(LoadBalancerClient loadBalancerClient) {
 		return new RibbonInterceptor(loadBalancerClient);
 	}
 
+	@Configuration
+	@ConditionalOnClass(name = "org.apache.http.nio.client.HttpAsyncClient")
+	protected static class RibbonAsyncRestTemplateConfiguration {
+
+		@LoadBalanced
+		@Autowired(required = false)
+		private List<AsyncRestTemplate> restTemplates = Collections.emptyList();
+
+		@Bean
+		public HttpComponentsAsyncClientHttpRequestFactory ribbonAsyncClientHttpRequestFactory() {
+			// One non-blocking client is shared by all services, so it is sized with the
+			// global ribbon.* settings (not the ones of a single client)
+			IClientConfig config = DefaultClientConfigImpl.getClientConfigWithDefaultValues();
+			RequestConfig requestConfig = RequestConfig.custom()
+					.setConnectTimeout(config.getPropertyAsInteger(
+							CommonClientConfigKey.ConnectTimeout, 2000))
+					.setSocketTimeout(config.getPropertyAsInteger(
+							CommonClientConfigKey.ReadTimeout, 5000))
+					.build();
+			CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+					.setMaxConnTotal(config.getPropertyAsInteger(
+							CommonClientConfigKey.MaxTotalConnections, 200))
+					.setMaxConnPerRoute(config.getPropertyAsInteger(
+							CommonClientConfigKey.MaxConnectionsPerHost, 50))
+					.setDefaultRequestConfig(requestConfig).build();
+			return new HttpComponentsAsyncClientHttpRequestFactory(client);
+		}
+
+		@Bean
+		public SmartInitializingSingleton ribbonAsyncRestTemplateInitializer(
+				final LoadBalancerClient loadBalancerClient) {
+			return new SmartInitializingSingleton() {
+				@Override
+				public void afterSingletonsInstantiated() {
+					for (AsyncRestTemplate restTemplate : restTemplates) {
+						restTemplate.setAsyncRequestFactory(new RibbonAsyncClientHttpRequestFactory(
+								loadBalancerClient, ribbonAsyncClientHttpRequestFactory()));
+					}
+				}
+			};
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnClass(name = "org.apache.http.nio.client.HttpAsyncClient")
+	@ConditionalOnExpression("${ribbon.ping.enabled:false}")
+	@EnableConfigurationProperties(RibbonPingProperties.class)
+	protected static class RibbonPingConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean
+		public ConcurrentPingStrategy ribbonPingStrategy(RibbonPingProperties properties) {
+			return new ConcurrentPingStrategy(properties.getMaxConcurrent(),
+					properties.getTimeout(), properties.getHealthyInterval());
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnExpression("${ribbon.eager-load.enabled:false}")
+	@EnableConfigurationProperties(RibbonEagerLoadProperties.class)
+	protected static class RibbonEagerLoadConfiguration {
+
+		@Autowired(required = false)
+		private DiscoveryClient discovery;
+
+		@Bean
+		public RibbonEagerLoader ribbonEagerLoader(SpringClientFactory clientFactory,
+				RibbonEagerLoadProperties properties) {
+			RibbonEagerLoader loader = new RibbonEagerLoader(clientFactory, properties);
+			loader.setDiscoveryClient(this.discovery);
+			return loader;
+		}
+
+	}
+
 }
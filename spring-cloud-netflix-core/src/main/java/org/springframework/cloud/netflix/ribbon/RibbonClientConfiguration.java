@@ -15,6 +15,10 @@
  */
 package org.springframework.cloud.netflix.ribbon;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -23,13 +27,20 @@ import org.springframework.cloud.netflix.ribbon.eureka.ZonePreferenceServerListF
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.netflix.client.RequestSpecificRetryHandler;
+import com.netflix.client.RetryHandler;
 import com.netflix.client.config.DefaultClientConfigImpl;
 import com.netflix.client.config.IClientConfig;
+import com.netflix.client.http.HttpRequest;
+import com.netflix.config.DynamicPropertyFactory;
+import com.netflix.loadbalancer.BaseLoadBalancer;
 import com.netflix.loadbalancer.DynamicServerListLoadBalancer;
 import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.PingUrl;
 import com.netflix.loadbalancer.Server;
 import com.netflix.loadbalancer.ServerList;
 import com.netflix.loadbalancer.ServerListFilter;
+import com.netflix.loadbalancer.ServerStats;
 import com.netflix.loadbalancer.ZoneAwareLoadBalancer;
 import com.netflix.niws.client.http.RestClient;
 import com.netflix.servo.monitor.Monitors;
@@ -49,51 +60,130 @@ public class RibbonClientConfiguration {
 	@Value("${ribbon.eureka.approximateZoneFromHostname:false}")
 	private boolean approximateZoneFromHostname = false;
 
+	@Autowired(required = false)
+	private ConcurrentPingStrategy pingStrategy;
+
 	// TODO: maybe re-instate autowired load balancers: identified by name they could be
 	// associated with ribbon clients
 	
 	@Bean
 	@ConditionalOnMissingBean
 	public IClientConfig ribbonClientConfig() {
-		DefaultClientConfigImpl config = new DefaultClientConfigImpl();
-		config.loadProperties(name);
-		return config;
+		return createClientConfig(name);
 	}
 
 	@Bean
 	@ConditionalOnMissingBean
-	public RestClient ribbonRestClient(IClientConfig config, ILoadBalancer loadBalancer) {
-		RestClient client = new RestClient(config);
-		client.setLoadBalancer(loadBalancer);
-		Monitors.registerObject("Client_" + name, client);
-		return client;
+	public RestClient ribbonRestClient(IClientConfig config, ILoadBalancer loadBalancer,
+			RetryBudget retryBudget) {
+		return createRestClient(name, config, loadBalancer, retryBudget);
 	}
 
 	@Bean
 	@ConditionalOnMissingBean
 	//TODO: move to ribbon.eureka package
 	public ILoadBalancer ribbonLoadBalancer(IClientConfig config, ServerListFilter<Server> filter) {
-		ZoneAwareLoadBalancer<Server> balancer = new ZoneAwareLoadBalancer<>(config);
-		wrapServerList(balancer);
-		balancer.setFilter(filter);
-		return balancer;
+		return createLoadBalancer(config, filter, approximateZoneFromHostname,
+				pingStrategy);
 	}
 	
 	@Bean
 	@ConditionalOnMissingBean
 	public ServerListFilter<Server> ribbonServerListFilter(IClientConfig config) {
-		ZonePreferenceServerListFilter filter = new ZonePreferenceServerListFilter();
-		filter.initWithNiwsConfig(config);
-		return filter;
+		return createServerListFilter(config);
 	}
 	
 	@Bean
 	@ConditionalOnMissingBean
-	public RibbonLoadBalancerContext ribbonLoadBalancerContext(ILoadBalancer loadBalancer, IClientConfig config) {
-		return new RibbonLoadBalancerContext(loadBalancer, config);
+	public RetryBudget ribbonRetryBudget() {
+		return createRetryBudget(name);
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public RibbonLoadBalancerContext ribbonLoadBalancerContext(ILoadBalancer loadBalancer, IClientConfig config, RetryBudget retryBudget) {
+		return createLoadBalancerContext(loadBalancer, config, retryBudget);
+	}
+
+	// The static factory methods below are shared with the lightweight clients created
+	// by SpringClientFactory without an ApplicationContext
+
+	static IClientConfig createClientConfig(String name) {
+		DefaultClientConfigImpl config = new DefaultClientConfigImpl();
+		config.loadProperties(name);
+		return config;
+	}
+
+	static RestClient createRestClient(String name, IClientConfig config,
+			ILoadBalancer loadBalancer, RetryBudget retryBudget) {
+		RestClient client = new BudgetedRestClient(config, retryBudget);
+		client.setLoadBalancer(loadBalancer);
+		Monitors.registerObject("Client_" + name, client);
+		return client;
+	}
+
+	static ILoadBalancer createLoadBalancer(IClientConfig config,
+			ServerListFilter<Server> filter, boolean approximateZoneFromHostname,
+			ConcurrentPingStrategy pingStrategy) {
+		ZoneAwareLoadBalancer<Server> balancer = new ZoneAwareLoadBalancer<>(config);
+		wrapServerList(balancer, approximateZoneFromHostname);
+		balancer.setFilter(filter);
+		configurePing(balancer, config, pingStrategy);
+		return balancer;
+	}
+
+	private static void configurePing(BaseLoadBalancer balancer, IClientConfig config,
+			ConcurrentPingStrategy pingStrategy) {
+		String path = DynamicPropertyFactory.getInstance()
+				.getStringProperty(config.getClientName() + ".ribbon.PingPath", null)
+				.get();
+		if (path != null) {
+			boolean secure = DynamicPropertyFactory.getInstance()
+					.getBooleanProperty(config.getClientName() + ".ribbon.IsSecure", false)
+					.get();
+			balancer.setPing(new PingUrl(secure, path));
+		}
+		if (pingStrategy != null) {
+			balancer.setPing(pingStrategy.wrap(balancer.getPing(), balancer));
+		}
+	}
+
+	static ServerListFilter<Server> createServerListFilter(IClientConfig config) {
+		ZonePreferenceServerListFilter filter = new ZonePreferenceServerListFilter();
+		filter.initWithNiwsConfig(config);
+		DynamicPropertyFactory properties = DynamicPropertyFactory.getInstance();
+		int subsetSize = properties.getIntProperty(
+				config.getClientName() + ".ribbon.SubsetSize", 0).get();
+		if (subsetSize > 0) {
+			String localId = properties.getStringProperty("ribbon.subset.localId",
+					getHostName()).get();
+			return new SubsetServerListFilter(filter, localId, subsetSize);
+		}
+		return filter;
+	}
+
+	private static String getHostName() {
+		try {
+			return InetAddress.getLocalHost().getHostName();
+		}
+		catch (UnknownHostException e) {
+			return "localhost";
+		}
 	}
 
-	private void wrapServerList(ILoadBalancer balancer) {
+	static RetryBudget createRetryBudget(String name) {
+		return RetryBudget.forClient(name);
+	}
+
+	static RibbonLoadBalancerContext createLoadBalancerContext(ILoadBalancer loadBalancer,
+			IClientConfig config, RetryBudget retryBudget) {
+		RibbonLoadBalancerContext context = new RibbonLoadBalancerContext(loadBalancer,
+				config);
+		context.setRetryBudget(retryBudget);
+		return context;
+	}
+
+	private static void wrapServerList(ILoadBalancer balancer, boolean approximateZoneFromHostname) {
 		if (balancer instanceof DynamicServerListLoadBalancer) {
 			@SuppressWarnings("unchecked")
 			DynamicServerListLoadBalancer<Server> dynamic = (DynamicServerListLoadBalancer<Server>) balancer;
@@ -109,4 +199,39 @@ public class RibbonClientConfiguration {
 		}
 	}
 
+	/**
+	 * A {@link RestClient} (e.g. for Zuul routes) whose retries are limited by a
+	 * {@link RetryBudget}, and whose successful requests deposit into it.
+	 */
+	static class BudgetedRestClient extends RestClient {
+
+		private final RetryBudget retryBudget;
+
+		BudgetedRestClient(IClientConfig config, RetryBudget retryBudget) {
+			super(config);
+			this.retryBudget = retryBudget;
+		}
+
+		@Override
+		public RequestSpecificRetryHandler getRequestSpecificRetryHandler(
+				HttpRequest request, IClientConfig requestConfig) {
+			RequestSpecificRetryHandler handler = super.getRequestSpecificRetryHandler(
+					request, requestConfig);
+			if (this.retryBudget == null) {
+				return handler;
+			}
+			return new BudgetedRetryHandler(handler, this.retryBudget);
+		}
+
+		@Override
+		public void noteRequestCompletion(ServerStats stats, Object response,
+				Throwable e, long responseTime, RetryHandler errorHandler) {
+			super.noteRequestCompletion(stats, response, e, responseTime, errorHandler);
+			if (e == null && this.retryBudget != null) {
+				this.retryBudget.deposit();
+			}
+		}
+
+	}
+
 }
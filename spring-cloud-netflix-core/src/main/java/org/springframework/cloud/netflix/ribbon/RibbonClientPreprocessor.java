@@ -0,0 +1,30 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+/**
+ * Callback for beans in the parent context that need to set up the (Archaius)
+ * configuration of a Ribbon client before it is created. Used by the lightweight clients
+ * in {@link SpringClientFactory}, which do not have their own ApplicationContext to run
+ * the default {@link RibbonClients} configurations in.
+ *
+ * @author Dave Syer
+ */
+public interface RibbonClientPreprocessor {
+
+	void preprocess(String name);
+
+}
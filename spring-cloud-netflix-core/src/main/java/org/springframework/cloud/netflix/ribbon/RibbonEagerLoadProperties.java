@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for creating Ribbon client contexts at startup instead of on the first
+ * request.
+ *
+ * @author Dave Syer
+ */
+@Data
+@ConfigurationProperties("ribbon.eager-load")
+public class RibbonEagerLoadProperties {
+
+	/**
+	 * Flag to switch on eager loading of Ribbon clients.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * The names of the clients to load. If empty all the services known to the
+	 * DiscoveryClient are loaded.
+	 */
+	private List<String> clients = new ArrayList<String>();
+
+	/**
+	 * The maximum number of client contexts to create in parallel.
+	 */
+	private int threads = 4;
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.BeansException;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.InstanceRegisteredEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Creates the Ribbon client contexts in parallel at startup, so that the first request
+ * to each service does not have to wait for its context to be created. The clients are
+ * either listed explicitly in {@link RibbonEagerLoadProperties} or are all the services
+ * known to the {@link DiscoveryClient} (which is consulted again when the local instance
+ * registers, since the registry might not have been fetched on refresh).
+ *
+ * @author Dave Syer
+ */
+@Slf4j
+public class RibbonEagerLoader implements ApplicationListener<ApplicationEvent>,
+		ApplicationContextAware {
+
+	private final SpringClientFactory clientFactory;
+
+	private final RibbonEagerLoadProperties properties;
+
+	private DiscoveryClient discovery;
+
+	private ApplicationContext context;
+
+	public RibbonEagerLoader(SpringClientFactory clientFactory,
+			RibbonEagerLoadProperties properties) {
+		this.clientFactory = clientFactory;
+		this.properties = properties;
+	}
+
+	public void setDiscoveryClient(DiscoveryClient discovery) {
+		this.discovery = discovery;
+	}
+
+	@Override
+	public void setApplicationContext(ApplicationContext context) throws BeansException {
+		this.context = context;
+	}
+
+	@Override
+	public void onApplicationEvent(ApplicationEvent event) {
+		if (event instanceof ContextRefreshedEvent) {
+			// The client contexts are children of this one and publish their own events
+			if (((ContextRefreshedEvent) event).getApplicationContext() == this.context) {
+				load(getClientNames());
+			}
+		}
+		else if (event instanceof InstanceRegisteredEvent
+				&& this.properties.getClients().isEmpty()) {
+			load(getClientNames());
+		}
+	}
+
+	/**
+	 * Create the contexts for the clients with the given names in parallel, waiting for
+	 * all of them to complete. Failures are logged and do not prevent the other clients
+	 * from loading (the failed ones are retried on first use).
+	 */
+	public void load(Set<String> names) {
+		names = new LinkedHashSet<>(names);
+		names.removeAll(this.clientFactory.getClientNames());
+		if (names.isEmpty()) {
+			return;
+		}
+		long start = System.currentTimeMillis();
+		int threads = Math.max(1, Math.min(this.properties.getThreads(), names.size()));
+		ExecutorService executor = Executors.newFixedThreadPool(threads,
+				new CustomizableThreadFactory("RibbonEagerLoader-"));
+		try {
+			List<Callable<String>> tasks = new ArrayList<>();
+			for (final String name : names) {
+				tasks.add(new Callable<String>() {
+					@Override
+					public String call() throws Exception {
+						RibbonEagerLoader.this.clientFactory.preload(Collections
+								.singleton(name));
+						return name;
+					}
+				});
+			}
+			List<Future<String>> results = executor.invokeAll(tasks);
+			int failed = 0;
+			for (Future<String> result : results) {
+				try {
+					result.get();
+				}
+				catch (ExecutionException e) {
+					failed++;
+					log.warn("Could not create Ribbon client context", e.getCause());
+				}
+			}
+			log.info("Created " + (names.size() - failed) + " Ribbon client contexts in "
+					+ (System.currentTimeMillis() - start) + "ms");
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Set<String> getClientNames() {
+		Set<String> names = new LinkedHashSet<>(this.properties.getClients());
+		if (names.isEmpty() && this.discovery != null) {
+			try {
+				names.addAll(this.discovery.getServices());
+			}
+			catch (Exception e) {
+				// The registry might not be available yet
+				log.debug("Could not list services for eager loading", e);
+			}
+		}
+		return names;
+	}
+
+}
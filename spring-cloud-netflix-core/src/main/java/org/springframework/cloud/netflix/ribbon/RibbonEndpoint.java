@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.cloud.netflix.ribbon.eureka.DomainExtractingServerList;
+
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.DynamicServerListLoadBalancer;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.LoadBalancerStats;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerList;
+import com.netflix.loadbalancer.ServerStats;
+
+/**
+ * Endpoint to display the Ribbon clients that have been created so far, with the current
+ * stats for each of their servers. Only clients that already exist are listed (none are
+ * created), and the stats are the ones Ribbon keeps anyway, so it is cheap to call
+ * often.
+ *
+ * @author Dave Syer
+ */
+public class RibbonEndpoint extends AbstractEndpoint<Map<String, Object>> {
+
+	private final SpringClientFactory clientFactory;
+
+	public RibbonEndpoint(SpringClientFactory clientFactory) {
+		super("ribbon");
+		this.clientFactory = clientFactory;
+	}
+
+	@Override
+	public Map<String, Object> invoke() {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		for (String name : this.clientFactory.getClientNames()) {
+			map.put(name, describe(this.clientFactory.getLoadBalancer(name)));
+		}
+		return map;
+	}
+
+	private Map<String, Object> describe(ILoadBalancer loadBalancer) {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		if (loadBalancer instanceof DynamicServerListLoadBalancer) {
+			ServerList<?> list = ((DynamicServerListLoadBalancer<?>) loadBalancer)
+					.getServerListImpl();
+			if (list instanceof DomainExtractingServerList) {
+				long updated = ((DomainExtractingServerList) list).getLastUpdated();
+				map.put("lastUpdated", updated > 0 ? updated : null);
+			}
+		}
+		if (!(loadBalancer instanceof BaseLoadBalancer)) {
+			return map;
+		}
+		BaseLoadBalancer balancer = (BaseLoadBalancer) loadBalancer;
+		LoadBalancerStats stats = balancer.getLoadBalancerStats();
+		long now = System.currentTimeMillis();
+		List<Map<String, Object>> servers = new ArrayList<Map<String, Object>>();
+		for (Server server : balancer.getServerList(false)) {
+			servers.add(describe(server, stats.getSingleServerStat(server), now));
+		}
+		map.put("servers", servers);
+		return map;
+	}
+
+	private Map<String, Object> describe(Server server, ServerStats stats, long now) {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("id", server.getId());
+		map.put("zone", server.getZone());
+		map.put("alive", server.isAlive());
+		map.put("activeRequests", stats.getActiveRequestsCount(now));
+		map.put("totalRequests", stats.getTotalRequestsCount());
+		map.put("successiveConnectionFailures",
+				stats.getSuccessiveConnectionFailureCount());
+		map.put("circuitBreakerTripped", stats.isCircuitBreakerTripped(now));
+		Map<String, Object> times = new LinkedHashMap<String, Object>();
+		times.put("mean", stats.getResponseTimeAvg());
+		times.put("max", stats.getResponseTimeMax());
+		times.put("p50", stats.getResponseTime50thPercentile());
+		times.put("p90", stats.getResponseTime90thPercentile());
+		times.put("p99", stats.getResponseTime99thPercentile());
+		map.put("responseTime", times);
+		return map;
+	}
+
+}
@@ -2,10 +2,13 @@ package org.springframework.cloud.netflix.ribbon;
 
 import java.net.URI;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerRequest;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
 
 import com.google.common.base.Throwables;
 import com.netflix.loadbalancer.ILoadBalancer;
@@ -40,31 +43,54 @@ public class RibbonLoadBalancerClient implements LoadBalancerClient {
 
     @Override
     public <T> T execute(String serviceId, LoadBalancerRequest<T> request) {
-        ILoadBalancer loadBalancer = getLoadBalancer(serviceId);
-        RibbonLoadBalancerContext context = clientFactory.getLoadBalancerContext(serviceId);
-        Server server = getServer(serviceId, loadBalancer);
-        RibbonServer ribbonServer = new RibbonServer(serviceId, server);
-
-        ServerStats serverStats = context.getServerStats(server);
-        context.noteOpenConnection(serverStats);
-        Stopwatch tracer = context.getExecuteTracer().start();
+        RibbonServer ribbonServer = new RibbonServer(serviceId, getServer(serviceId));
+        RibbonStatsRecorder statsRecorder = startStats(ribbonServer);
 
         try {
 
             T returnVal = request.apply(ribbonServer);
-            recordStats(context, tracer, serverStats, returnVal, null);
+            statsRecorder.recordStats(returnVal, null);
             return returnVal;
         } catch (Exception e) {
-            recordStats(context, tracer, serverStats, null, e);
+            statsRecorder.recordStats(null, e);
             Throwables.propagate(e);
         }
         return null;
     }
 
-    private void recordStats(RibbonLoadBalancerContext context, Stopwatch tracer, ServerStats serverStats, Object entity, Throwable exception) {
-        tracer.stop();
-        long duration = tracer.getDuration(TimeUnit.MILLISECONDS);
-        context.noteRequestCompletion(serverStats, entity, exception, duration, null/*errorHandler*/);
+    /**
+     * Execute a request that returns a future (e.g. from an asynchronous HTTP client)
+     * without blocking. The server stays open in the load balancer stats until the future
+     * completes, when the response time is recorded.
+     */
+    public <T> ListenableFuture<T> executeAsync(String serviceId, LoadBalancerRequest<ListenableFuture<T>> request) {
+        RibbonServer ribbonServer = new RibbonServer(serviceId, getServer(serviceId));
+        final RibbonStatsRecorder statsRecorder = startStats(ribbonServer);
+
+        ListenableFuture<T> future;
+        try {
+            future = request.apply(ribbonServer);
+        } catch (Exception e) {
+            statsRecorder.recordStats(null, e);
+            throw Throwables.propagate(e);
+        }
+        future.addCallback(new ListenableFutureCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                statsRecorder.recordStats(result, null);
+            }
+
+            @Override
+            public void onFailure(Throwable ex) {
+                statsRecorder.recordStats(null, ex);
+            }
+        });
+        return future;
+    }
+
+    RibbonStatsRecorder startStats(RibbonServer ribbonServer) {
+        RibbonLoadBalancerContext context = clientFactory.getLoadBalancerContext(ribbonServer.getServiceId());
+        return new RibbonStatsRecorder(context, ribbonServer.server);
     }
 
     protected Server getServer(String serviceId) {
@@ -84,6 +110,43 @@ public class RibbonLoadBalancerClient implements LoadBalancerClient {
     	return clientFactory.getLoadBalancer(serviceId);
     }
 
+    /**
+     * Tracks one request to a server: notes the open connection when created and the
+     * completion (only once) when {@link #recordStats(Object, Throwable)} is called.
+     */
+    static class RibbonStatsRecorder {
+        private final RibbonLoadBalancerContext context;
+        private final ServerStats serverStats;
+        private final Stopwatch tracer;
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        RibbonStatsRecorder(RibbonLoadBalancerContext context, Server server) {
+            this.context = context;
+            this.serverStats = context.getServerStats(server);
+            context.noteOpenConnection(serverStats);
+            this.tracer = context.getExecuteTracer().start();
+        }
+
+        void recordStats(Object entity, Throwable exception) {
+            if (!recorded.compareAndSet(false, true)) {
+                return;
+            }
+            tracer.stop();
+            long duration = tracer.getDuration(TimeUnit.MILLISECONDS);
+            context.noteRequestCompletion(serverStats, entity, exception, duration, null/*errorHandler*/);
+        }
+
+        /**
+         * The request was abandoned before it completed: it is no longer active, but its
+         * duration and outcome say nothing about the server.
+         */
+        void cancel() {
+            if (recorded.compareAndSet(false, true) && serverStats != null) {
+                serverStats.decrementActiveRequestsCount();
+            }
+        }
+    }
+
     protected static class RibbonServer implements ServiceInstance {
 		protected String serviceId;
 		protected Server server;
@@ -2,15 +2,21 @@ package org.springframework.cloud.netflix.ribbon;
 
 import com.netflix.client.RetryHandler;
 import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.BaseLoadBalancer;
 import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.IRule;
 import com.netflix.loadbalancer.LoadBalancerContext;
 import com.netflix.loadbalancer.ServerStats;
+import com.netflix.niws.client.http.RestClient;
 import com.netflix.servo.monitor.Timer;
 
 /**
  * @author Spencer Gibb
  */
 public class RibbonLoadBalancerContext extends LoadBalancerContext {
+
+    private RetryBudget retryBudget;
+
     public RibbonLoadBalancerContext(ILoadBalancer lb) {
         super(lb);
     }
@@ -23,6 +29,19 @@ public class RibbonLoadBalancerContext extends LoadBalancerContext {
         super(lb, clientConfig, handler);
     }
 
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    /**
+     * Deposit into the given budget when requests succeed. The budget is spent by the
+     * clients that retry (the Feign load balancer and the {@link RestClient} of the same
+     * name), not by this context.
+     */
+    public void setRetryBudget(RetryBudget retryBudget) {
+        this.retryBudget = retryBudget;
+    }
+
     @Override
     public void noteOpenConnection(ServerStats serverStats) {
         super.noteOpenConnection(serverStats);
@@ -35,11 +54,28 @@ public class RibbonLoadBalancerContext extends LoadBalancerContext {
 
     @Override
     public void noteRequestCompletion(ServerStats stats, Object response, Throwable e, long responseTime) {
-        super.noteRequestCompletion(stats, response, e, responseTime);
+        noteRequestCompletion(stats, response, e, responseTime, getRetryHandler());
     }
 
     @Override
     public void noteRequestCompletion(ServerStats stats, Object response, Throwable e, long responseTime, RetryHandler errorHandler) {
         super.noteRequestCompletion(stats, response, e, responseTime, errorHandler);
+        if (e == null && retryBudget != null) {
+            retryBudget.deposit();
+        }
+        notifyRule(getLoadBalancer(), stats, responseTime, e);
+    }
+
+    /**
+     * Tell the rule of the load balancer (if it is a {@link RequestCompletionListener})
+     * that a request has completed.
+     */
+    public static void notifyRule(ILoadBalancer lb, ServerStats stats, long responseTime, Throwable e) {
+        if (stats != null && lb instanceof BaseLoadBalancer) {
+            IRule rule = ((BaseLoadBalancer) lb).getRule();
+            if (rule instanceof RequestCompletionListener) {
+                ((RequestCompletionListener) rule).noteRequestCompletion(stats, responseTime, e);
+            }
+        }
     }
 }
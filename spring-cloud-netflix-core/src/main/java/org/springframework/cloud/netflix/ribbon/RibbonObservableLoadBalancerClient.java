@@ -0,0 +1,86 @@
+package org.springframework.cloud.netflix.ribbon;
+
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerRequest;
+import org.springframework.cloud.netflix.ribbon.RibbonLoadBalancerClient.RibbonServer;
+import org.springframework.cloud.netflix.ribbon.RibbonLoadBalancerClient.RibbonStatsRecorder;
+
+import rx.Observable;
+import rx.Observable.OnSubscribe;
+import rx.Subscriber;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * Executes load balanced requests that return an {@link Observable}. A server is chosen
+ * when the result is subscribed to, and (with a {@link RibbonLoadBalancerClient}) the
+ * load balancer stats are recorded when it completes or fails, so no thread is tied up
+ * while the request is in flight. If it is unsubscribed first the request is only taken
+ * off the server's active count.
+ *
+ * @author Spencer Gibb
+ * @author Dave Syer
+ */
+public class RibbonObservableLoadBalancerClient {
+
+	private LoadBalancerClient loadBalancer;
+
+	public RibbonObservableLoadBalancerClient(LoadBalancerClient loadBalancer) {
+		this.loadBalancer = loadBalancer;
+	}
+
+	public <T> Observable<T> execute(final String serviceId,
+			final LoadBalancerRequest<Observable<T>> request) {
+		return Observable.create(new OnSubscribe<T>() {
+			@Override
+			public void call(Subscriber<? super T> subscriber) {
+				if (!(loadBalancer instanceof RibbonLoadBalancerClient)) {
+					// Another LoadBalancerClient can choose the server but has no stats
+					Observable<T> observable;
+					try {
+						observable = request.apply(loadBalancer.choose(serviceId));
+					}
+					catch (Exception e) {
+						subscriber.onError(e);
+						return;
+					}
+					observable.unsafeSubscribe(subscriber);
+					return;
+				}
+				RibbonLoadBalancerClient ribbon = (RibbonLoadBalancerClient) loadBalancer;
+				RibbonServer ribbonServer = new RibbonServer(serviceId,
+						ribbon.getServer(serviceId));
+				final RibbonStatsRecorder statsRecorder = ribbon.startStats(ribbonServer);
+				subscriber.add(Subscriptions.create(new Action0() {
+					@Override
+					public void call() {
+						// Only counts if the request has not already completed or failed
+						statsRecorder.cancel();
+					}
+				}));
+				Observable<T> observable;
+				try {
+					observable = request.apply(ribbonServer);
+				}
+				catch (Exception e) {
+					statsRecorder.recordStats(null, e);
+					subscriber.onError(e);
+					return;
+				}
+				observable.doOnError(new Action1<Throwable>() {
+					@Override
+					public void call(Throwable e) {
+						statsRecorder.recordStats(null, e);
+					}
+				}).doOnCompleted(new Action0() {
+					@Override
+					public void call() {
+						statsRecorder.recordStats(null, null);
+					}
+				}).unsafeSubscribe(subscriber);
+			}
+		});
+	}
+
+}
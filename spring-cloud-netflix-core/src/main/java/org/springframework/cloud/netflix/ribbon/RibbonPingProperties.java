@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the {@link ConcurrentPingStrategy} shared by all Ribbon clients.
+ *
+ * @author Dave Syer
+ */
+@Data
+@ConfigurationProperties("ribbon.ping")
+public class RibbonPingProperties {
+
+	/**
+	 * Flag to switch on concurrent pinging of servers.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * The maximum number of checks in flight at any one time, across all clients.
+	 */
+	private int maxConcurrent = 100;
+
+	/**
+	 * The time to wait for the checks of one client to complete (milliseconds).
+	 */
+	private long timeout = 2000;
+
+	/**
+	 * The time between checks of a server that is up (milliseconds). Servers that are
+	 * down are checked every ping interval of their load balancer.
+	 */
+	private long healthyInterval = 30000;
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import org.springframework.util.ClassUtils;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.LeaseInfo;
+import com.netflix.config.DynamicPropertyFactory;
+import com.netflix.loadbalancer.Server;
+import com.netflix.niws.loadbalancer.DiscoveryEnabledServer;
+
+/**
+ * Weights for servers that have recently started, so that they get less traffic while
+ * they warm up. The weight ramps from <code>minWeight</code> to 1 over
+ * <code>window</code> milliseconds from the time the instance came up in Eureka (the
+ * service up timestamp of its lease, or its registration time), either linearly or
+ * exponentially. Servers that do not come from Eureka always have weight 1.
+ *
+ * Configured per client with <code>&lt;client&gt;.ribbon.SlowStartWindow</code> (default
+ * 0: no slow start), <code>SlowStartCurve</code> (<code>linear</code> or
+ * <code>exponential</code>, default linear) and <code>SlowStartMinWeight</code> (default
+ * 0.1). Slow start is opt-in: only the {@link PowerOfTwoChoicesRule} and the
+ * {@link PeakEwmaRule} apply the weights, so it has no effect with the default
+ * <code>ZoneAvoidanceRule</code>.
+ *
+ * @author Dave Syer
+ */
+public class SlowStart {
+
+	public static final double DEFAULT_MIN_WEIGHT = 0.1;
+
+	private static final boolean discoveryPresent = ClassUtils.isPresent(
+			"com.netflix.niws.loadbalancer.DiscoveryEnabledServer", null);
+
+	public static enum Curve {
+		LINEAR, EXPONENTIAL
+	}
+
+	private final long window;
+
+	private final Curve curve;
+
+	private final double minWeight;
+
+	public SlowStart(long window, Curve curve, double minWeight) {
+		this.window = window;
+		this.curve = curve;
+		this.minWeight = Math.min(Math.max(minWeight, 0.01), 1.0);
+	}
+
+	/**
+	 * Create the slow start for the named client, or return null if it is not enabled.
+	 */
+	public static SlowStart create(String clientName) {
+		DynamicPropertyFactory properties = DynamicPropertyFactory.getInstance();
+		String prefix = clientName + ".ribbon.";
+		long window = properties.getLongProperty(prefix + "SlowStartWindow", 0).get();
+		if (window <= 0) {
+			return null;
+		}
+		Curve curve = Curve.LINEAR;
+		String name = properties.getStringProperty(prefix + "SlowStartCurve",
+				Curve.LINEAR.name()).get();
+		if (Curve.EXPONENTIAL.name().equalsIgnoreCase(name)) {
+			curve = Curve.EXPONENTIAL;
+		}
+		return new SlowStart(window, curve, properties.getDoubleProperty(
+				prefix + "SlowStartMinWeight", DEFAULT_MIN_WEIGHT).get());
+	}
+
+	/**
+	 * The weight of the server at the given time: between the minimum weight and 1.
+	 */
+	public double getWeight(Server server, long now) {
+		long start = discoveryPresent ? Timestamps.getStartTime(server) : 0;
+		if (start <= 0) {
+			return 1.0;
+		}
+		return getWeight(now - start);
+	}
+
+	double getWeight(long age) {
+		if (age >= this.window) {
+			return 1.0;
+		}
+		double fraction = Math.max(age, 0) / (double) this.window;
+		if (this.curve == Curve.EXPONENTIAL) {
+			return Math.pow(this.minWeight, 1 - fraction);
+		}
+		return this.minWeight + (1 - this.minWeight) * fraction;
+	}
+
+	/**
+	 * Keeps the Eureka classes from being loaded unless they are present.
+	 */
+	private static class Timestamps {
+
+		static long getStartTime(Server server) {
+			if (!(server instanceof DiscoveryEnabledServer)) {
+				return 0;
+			}
+			InstanceInfo instance = ((DiscoveryEnabledServer) server).getInstanceInfo();
+			LeaseInfo lease = instance == null ? null : instance.getLeaseInfo();
+			if (lease == null) {
+				return 0;
+			}
+			long up = lease.getServiceUpTimestamp();
+			return up > 0 ? up : lease.getRegistrationTimestamp();
+		}
+
+	}
+
+}
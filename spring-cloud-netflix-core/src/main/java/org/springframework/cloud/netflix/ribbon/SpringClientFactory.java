@@ -1,22 +1,31 @@
 package org.springframework.cloud.netflix.ribbon;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.boot.autoconfigure.PropertyPlaceholderAutoConfiguration;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.core.env.MapPropertySource;
 
+import com.google.common.base.Throwables;
 import com.netflix.client.IClient;
 import com.netflix.client.IClientConfigAware;
 import com.netflix.client.config.IClientConfig;
@@ -25,20 +34,37 @@ import com.netflix.loadbalancer.ILoadBalancer;
 /**
  * A factory that creates client, load balancer and client configuration instances. It
  * creates a Spring ApplicationContext per client name, and extracts the beans that it
- * needs from there.
+ * needs from there. Contexts are created on first use (or eagerly, see
+ * {@link #preload(Collection)}) and each name has its own future, so creating the
+ * context for one client never blocks lookups for another. In
+ * {@link #setLightweight(boolean) lightweight} mode clients without custom configuration
+ * are created directly instead, without an ApplicationContext.
  *
  */
 public class SpringClientFactory implements DisposableBean, ApplicationContextAware {
 
-	private Map<String, AnnotationConfigApplicationContext> contexts = new ConcurrentHashMap<>();
+	private ConcurrentMap<String, FutureTask<AnnotationConfigApplicationContext>> contexts = new ConcurrentHashMap<>();
+	private ConcurrentMap<String, FutureTask<LightweightRibbonClient>> lightweightClients = new ConcurrentHashMap<>();
 	private Map<String, RibbonClientSpecification> configurations = new ConcurrentHashMap<>();
 	private ApplicationContext parent;
+	private boolean lightweight = false;
 
 	@Override
 	public void setApplicationContext(ApplicationContext parent) throws BeansException {
 		this.parent = parent;
 	}
 	
+	/**
+	 * Flag to say that clients with no configuration of their own (no
+	 * <code>@RibbonClient</code>) should be created directly, without an
+	 * ApplicationContext per client. Default configurations from
+	 * <code>@RibbonClients</code> are not applied to such clients, but
+	 * {@link RibbonClientPreprocessor} beans in the parent context are.
+	 */
+	public void setLightweight(boolean lightweight) {
+		this.lightweight = lightweight;
+	}
+
 	public void setConfigurations(List<RibbonClientSpecification> configurations) {
 		for (RibbonClientSpecification client : configurations) {
 			this.configurations.put(client.getName(), client);
@@ -47,10 +73,58 @@ public class SpringClientFactory implements DisposableBean, ApplicationContextAw
 
 	@Override
 	public void destroy() {
-		Collection<AnnotationConfigApplicationContext> values = contexts.values();
+		Collection<FutureTask<AnnotationConfigApplicationContext>> values = new ArrayList<>(
+				contexts.values());
 		contexts.clear();
-		for (AnnotationConfigApplicationContext context : values) {
-			context.close();
+		for (FutureTask<AnnotationConfigApplicationContext> value : values) {
+			AnnotationConfigApplicationContext context = getIfCreated(value);
+			if (context != null) {
+				context.close();
+			}
+		}
+		Collection<FutureTask<LightweightRibbonClient>> clients = new ArrayList<>(
+				lightweightClients.values());
+		lightweightClients.clear();
+		for (FutureTask<LightweightRibbonClient> value : clients) {
+			LightweightRibbonClient client = getIfCreated(value);
+			if (client != null) {
+				client.close();
+			}
+		}
+	}
+
+	/**
+	 * The names of the clients that have a context (either created or in the process of
+	 * being created).
+	 */
+	public Set<String> getContextNames() {
+		return new LinkedHashSet<>(contexts.keySet());
+	}
+
+	/**
+	 * The names of all the clients created so far, with or without a context of their
+	 * own.
+	 */
+	public Set<String> getClientNames() {
+		Set<String> names = new LinkedHashSet<>(contexts.keySet());
+		names.addAll(lightweightClients.keySet());
+		return names;
+	}
+
+	/**
+	 * Create the contexts for the clients with the given names, if they do not already
+	 * exist. Blocks until all the contexts are ready.
+	 *
+	 * @throws RuntimeException if any error occurs
+	 */
+	public void preload(Collection<String> names) {
+		for (String name : names) {
+			if (isLightweight(name)) {
+				getLightweightClient(name);
+			}
+			else {
+				getContext(name);
+			}
 		}
 	}
 
@@ -72,6 +146,15 @@ public class SpringClientFactory implements DisposableBean, ApplicationContextAw
 		return getInstance(name, ILoadBalancer.class);
 	}
 
+	/**
+	 * Get the client config associated with the name.
+	 *
+	 * @throws RuntimeException if any error occurs
+	 */
+	public IClientConfig getClientConfig(String name) {
+		return getInstance(name, IClientConfig.class);
+	}
+
 	/**
 	 * Get the load balancer context associated with the name.
 	 *
@@ -81,15 +164,124 @@ public class SpringClientFactory implements DisposableBean, ApplicationContextAw
 		return getInstance(serviceId, RibbonLoadBalancerContext.class);
 	}
 
-	private AnnotationConfigApplicationContext getContext(String name) {
-		if (!contexts.containsKey(name)) {
-			synchronized (contexts) {
-				if (!contexts.containsKey(name)) {
-					contexts.put(name, createContext(name));
-				}
+	private AnnotationConfigApplicationContext getContext(final String name) {
+		return getOrCreate(contexts, name,
+				new Callable<AnnotationConfigApplicationContext>() {
+					@Override
+					public AnnotationConfigApplicationContext call() {
+						return createContext(name);
+					}
+				});
+	}
+
+	private LightweightRibbonClient getLightweightClient(final String name) {
+		return getOrCreate(lightweightClients, name,
+				new Callable<LightweightRibbonClient>() {
+					@Override
+					public LightweightRibbonClient call() {
+						return createLightweightClient(name);
+					}
+				});
+	}
+
+	private <T> T getOrCreate(ConcurrentMap<String, FutureTask<T>> cache, String name,
+			Callable<T> factory) {
+		FutureTask<T> task = cache.get(name);
+		if (task == null) {
+			CreationTask<T> created = new CreationTask<>(factory);
+			task = cache.putIfAbsent(name, created);
+			if (task == null) {
+				task = created;
+				// Only the thread that registered the future creates the value, other
+				// callers for the same name wait for it below
+				created.run();
 			}
 		}
-		return contexts.get(name);
+		if (!task.isDone() && task instanceof CreationTask
+				&& ((CreationTask<T>) task).isCreatingThread()) {
+			// Waiting here would deadlock, since this thread is the one creating it
+			throw new IllegalStateException("Circular reference creating client: " + name
+					+ " (is a bean in its context looking up the same client?)");
+		}
+		try {
+			return task.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while creating client: "
+					+ name, e);
+		}
+		catch (ExecutionException e) {
+			// Allow the next caller to try again
+			cache.remove(name, task);
+			throw Throwables.propagate(e.getCause());
+		}
+	}
+
+	/**
+	 * A future that remembers which thread is running it, so that a lookup for the same
+	 * name from that thread can fail instead of waiting for itself.
+	 */
+	private static class CreationTask<T> extends FutureTask<T> {
+
+		private volatile Thread creator;
+
+		CreationTask(Callable<T> callable) {
+			super(callable);
+		}
+
+		@Override
+		public void run() {
+			this.creator = Thread.currentThread();
+			try {
+				super.run();
+			}
+			finally {
+				this.creator = null;
+			}
+		}
+
+		boolean isCreatingThread() {
+			return this.creator == Thread.currentThread();
+		}
+
+	}
+
+	private <T> T getIfCreated(FutureTask<T> task) {
+		// A value that is still being created is waited for, so it can be closed
+		try {
+			return task.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		catch (ExecutionException e) {
+			return null;
+		}
+	}
+
+	private boolean isLightweight(String name) {
+		return lightweight && !configurations.containsKey(name);
+	}
+
+	private LightweightRibbonClient createLightweightClient(String name) {
+		boolean approximateZoneFromHostname = false;
+		Collection<RibbonClientPreprocessor> preprocessors = Collections.emptyList();
+		ConcurrentPingStrategy pingStrategy = null;
+		if (parent != null) {
+			approximateZoneFromHostname = parent.getEnvironment().getProperty(
+					"ribbon.eureka.approximateZoneFromHostname", Boolean.class, false);
+			preprocessors = BeanFactoryUtils.beansOfTypeIncludingAncestors(parent,
+					RibbonClientPreprocessor.class).values();
+			Collection<ConcurrentPingStrategy> pingStrategies = BeanFactoryUtils
+					.beansOfTypeIncludingAncestors(parent, ConcurrentPingStrategy.class).values();
+			if (pingStrategies.size() == 1) {
+				pingStrategy = pingStrategies.iterator().next();
+			}
+		}
+		return new LightweightRibbonClient(name, approximateZoneFromHostname,
+				preprocessors, pingStrategy);
 	}
 
 	private AnnotationConfigApplicationContext createContext(String name) {
@@ -122,7 +314,7 @@ public class SpringClientFactory implements DisposableBean, ApplicationContextAw
 		return context;
 	}
 
-	private <C> C instantiateWithConfig(AnnotationConfigApplicationContext context,
+	private <C> C instantiateWithConfig(AutowireCapableBeanFactory beanFactory,
 			Class<C> clazz, IClientConfig config) {
 		C result = null;
 		if (IClientConfigAware.class.isAssignableFrom(clazz)) {
@@ -145,17 +337,36 @@ public class SpringClientFactory implements DisposableBean, ApplicationContextAw
 			catch (Throwable e) { // NOPMD
 			}
 		}
-		context.getAutowireCapableBeanFactory().autowireBean(result);
+		if (result == null) {
+			throw new IllegalStateException("Cannot create instance of "
+					+ clazz.getName() + " for client: " + config.getClientName());
+		}
+		if (beanFactory != null) {
+			beanFactory.autowireBean(result);
+		}
 		return result;
 	}
 
 	private <C> C getInstance(String name, Class<C> type) {
+		if (isLightweight(name)) {
+			LightweightRibbonClient client = getLightweightClient(name);
+			C instance = client.getInstance(type);
+			if (instance == null) {
+				// There is no context for this client, so never create one here: build
+				// the instance from the lightweight client's own config instead
+				instance = instantiateWithConfig(
+						parent == null ? null : parent.getAutowireCapableBeanFactory(),
+						type, client.getInstance(IClientConfig.class));
+			}
+			return instance;
+		}
 		AnnotationConfigApplicationContext context = getContext(name);
 		if (BeanFactoryUtils.beanNamesForTypeIncludingAncestors(context, type).length > 0) {
 			return context.getBean(type);
 		}
 		IClientConfig config = getInstance(name, IClientConfig.class);
-		return instantiateWithConfig(context, type, config);
+		return instantiateWithConfig(context.getAutowireCapableBeanFactory(), type,
+				config);
 	}
 
 }
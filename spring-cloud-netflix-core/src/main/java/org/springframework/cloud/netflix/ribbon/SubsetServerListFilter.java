@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerListFilter;
+
+/**
+ * A {@link ServerListFilter} that limits the servers a client talks to to a stable subset
+ * of the servers that another filter (usually the
+ * {@link org.springframework.cloud.netflix.ribbon.eureka.ZonePreferenceServerListFilter
+ * zone preference filter}) selects. The subset is chosen by rendezvous hashing: each
+ * server is scored by a hash of the local instance id and the server id, and the servers
+ * with the highest scores are kept. Different clients get different (evenly spread)
+ * subsets, and when servers come or go only the subsets that contained them change, so
+ * connections are not reshuffled when either side scales.
+ *
+ * @author Dave Syer
+ */
+public class SubsetServerListFilter implements ServerListFilter<Server> {
+
+	private static final HashFunction HASH = Hashing.murmur3_128();
+
+	private final ServerListFilter<Server> delegate;
+
+	private final String localId;
+
+	private final int size;
+
+	public SubsetServerListFilter(ServerListFilter<Server> delegate, String localId,
+			int size) {
+		this.delegate = delegate;
+		this.localId = localId;
+		this.size = size;
+	}
+
+	public ServerListFilter<Server> getDelegate() {
+		return this.delegate;
+	}
+
+	@Override
+	public List<Server> getFilteredListOfServers(List<Server> servers) {
+		List<Server> filtered = this.delegate.getFilteredListOfServers(servers);
+		if (filtered == null || this.size <= 0 || filtered.size() <= this.size) {
+			return filtered;
+		}
+		int count = filtered.size();
+		long[] scores = new long[count];
+		for (int i = 0; i < count; i++) {
+			scores[i] = score(filtered.get(i));
+		}
+		long[] sorted = scores.clone();
+		Arrays.sort(sorted);
+		long threshold = sorted[count - this.size];
+		List<Server> result = new ArrayList<Server>(this.size);
+		// Keep the servers with the highest scores, in their original order
+		for (int i = 0; i < count && result.size() < this.size; i++) {
+			if (scores[i] >= threshold) {
+				result.add(filtered.get(i));
+			}
+		}
+		return result;
+	}
+
+	private long score(Server server) {
+		return HASH.newHasher().putString(this.localId, Charsets.UTF_8)
+				.putString(server.getId(), Charsets.UTF_8).hash().asLong();
+	}
+
+}
@@ -16,7 +16,9 @@
 package org.springframework.cloud.netflix.ribbon.eureka;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.netflix.client.config.CommonClientConfigKey;
 import com.netflix.client.config.IClientConfig;
@@ -26,6 +28,7 @@ import lombok.Setter;
 import org.springframework.util.StringUtils;
 
 import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.loadbalancer.Server;
 import com.netflix.loadbalancer.ServerList;
 import com.netflix.niws.loadbalancer.DiscoveryEnabledServer;
@@ -40,12 +43,27 @@ public class DomainExtractingServerList implements ServerList<Server> {
     private IClientConfig clientConfig;
 	private boolean approximateZoneFromHostname;
 
+	/**
+	 * Servers from the last refresh keyed by instance id, so that instances that have not
+	 * changed keep the same {@link Server} (and hence the same stats).
+	 */
+	private volatile Map<String, DomainExtractingServer> cache = new HashMap<>();
+
+	private volatile long lastUpdated = 0;
+
 	public DomainExtractingServerList(ServerList<Server> list, IClientConfig clientConfig, boolean approximateZoneFromHostname) {
         this.list = list;
         this.clientConfig = clientConfig;
 		this.approximateZoneFromHostname = approximateZoneFromHostname;
 	}
 
+    /**
+     * The server list that this one decorates.
+     */
+    ServerList<Server> getList() {
+        return list;
+    }
+
     @Override
     public List<Server> getInitialListOfServers() {
         List<Server> servers = setZones(list.getInitialListOfServers());
@@ -58,22 +76,44 @@ public class DomainExtractingServerList implements ServerList<Server> {
         return servers;
     }
 
-    private List<Server> setZones(List<Server> servers) {
-        List<Server> result = new ArrayList<>();
+    private synchronized List<Server> setZones(List<Server> servers) {
+        List<Server> result = new ArrayList<>(servers.size());
         boolean isSecure = clientConfig.getPropertyAsBoolean(CommonClientConfigKey.IsSecure, Boolean.TRUE);
         boolean shouldUseIpAddr = clientConfig.getPropertyAsBoolean(CommonClientConfigKey.UseIPAddrForServer, Boolean.FALSE);
+        Map<String, DomainExtractingServer> previous = this.cache;
+        Map<String, DomainExtractingServer> current = new HashMap<>(servers.size() * 2);
         for (Server server : servers) {
             if (server instanceof DiscoveryEnabledServer) {
-                result.add(new DomainExtractingServer((DiscoveryEnabledServer) server,
-                        isSecure, shouldUseIpAddr, approximateZoneFromHostname));
+                DiscoveryEnabledServer enabled = (DiscoveryEnabledServer) server;
+                InstanceInfo instance = enabled.getInstanceInfo();
+                String key = instance.getId();
+                DomainExtractingServer des = key == null ? null : previous.get(key);
+                if (des == null || !des.matches(instance, isSecure, shouldUseIpAddr)) {
+                    des = new DomainExtractingServer(enabled, isSecure, shouldUseIpAddr,
+                            approximateZoneFromHostname);
+                }
+                if (key != null) {
+                    current.put(key, des);
+                }
+                result.add(des);
             }
             else {
                 result.add(server);
             }
         }
+        this.cache = current;
+        this.lastUpdated = System.currentTimeMillis();
         return result;
     }
 
+    /**
+     * @return the time of the last refresh of the server list (milliseconds since the
+     * epoch), or 0 if it has never been refreshed
+     */
+    public long getLastUpdated() {
+        return this.lastUpdated;
+    }
+
 }
 
 class DomainExtractingServer extends DiscoveryEnabledServer {
@@ -82,9 +122,23 @@ class DomainExtractingServer extends DiscoveryEnabledServer {
     @Setter
     private String id;
 
+    private final long lastDirtyTimestamp;
+
+    private final InstanceStatus status;
+
+    private final boolean useSecurePort;
+
+    private final boolean useIpAddr;
+
     public DomainExtractingServer(DiscoveryEnabledServer server, boolean useSecurePort, boolean useIpAddr, boolean approximateZoneFromHostname) {
 		//host and port are set in super()
         super(server.getInstanceInfo(), useSecurePort, useIpAddr);
+        InstanceInfo instance = server.getInstanceInfo();
+        Long timestamp = instance.getLastDirtyTimestamp();
+        this.lastDirtyTimestamp = timestamp == null ? 0 : timestamp;
+        this.status = instance.getStatus();
+        this.useSecurePort = useSecurePort;
+        this.useIpAddr = useIpAddr;
 		if (approximateZoneFromHostname) {
 			setZone(extractApproximateZone(server));
 		} else {
@@ -95,6 +149,17 @@ class DomainExtractingServer extends DiscoveryEnabledServer {
 		setReadyToServe(server.isReadyToServe());
     }
 
+    /**
+     * @return true if this server was created from the same version of the instance
+     * with the same settings
+     */
+    boolean matches(InstanceInfo instance, boolean useSecurePort, boolean useIpAddr) {
+        Long timestamp = instance.getLastDirtyTimestamp();
+        return timestamp != null && timestamp == this.lastDirtyTimestamp
+                && instance.getStatus() == this.status
+                && useSecurePort == this.useSecurePort && useIpAddr == this.useIpAddr;
+    }
+
     private String extractId(Server server) {
         if (server instanceof DiscoveryEnabledServer) {
             DiscoveryEnabledServer enabled = (DiscoveryEnabledServer) server;
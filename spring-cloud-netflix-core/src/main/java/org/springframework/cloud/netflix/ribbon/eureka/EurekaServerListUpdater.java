@@ -0,0 +1,218 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon.eureka;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.client.discovery.DiscoveryHeartbeatEvent;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StringUtils;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.client.config.CommonClientConfigKey;
+import com.netflix.client.config.IClientConfig;
+import com.netflix.discovery.DiscoveryClient;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.loadbalancer.DynamicServerListLoadBalancer;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.ServerList;
+import com.netflix.niws.loadbalancer.DiscoveryEnabledNIWSServerList;
+
+/**
+ * Updates the server lists of the Ribbon clients when the local Eureka registry changes,
+ * instead of each client polling its server list on a timer. On every
+ * {@link DiscoveryHeartbeatEvent} (i.e. when the registry has been fetched) the instances
+ * of each client's service are fingerprinted (id, status and last dirty timestamp) and
+ * only the clients whose fingerprint has changed update their server lists. Polling is
+ * stopped for each client the first time it is seen. The work is done on a single
+ * background thread. The event is published when the registry has been fetched but before
+ * it is merged into the local one, so the check waits until the local registry has the
+ * version in the event (or a few seconds have passed). Only clients whose server list
+ * comes from Eureka are updated this way; any other client keeps polling.
+ *
+ * @author Dave Syer
+ */
+@Slf4j
+public class EurekaServerListUpdater implements
+		ApplicationListener<DiscoveryHeartbeatEvent>, DisposableBean {
+
+	private static final long RETRY_INTERVAL = 100;
+
+	private static final int MAX_RETRIES = 50;
+
+	private final SpringClientFactory clientFactory;
+
+	private final DiscoveryClient discovery;
+
+	private final Map<String, Long> fingerprints = new ConcurrentHashMap<>();
+
+	private final AtomicBoolean pending = new AtomicBoolean();
+
+	private final AtomicReference<Long> version = new AtomicReference<>();
+
+	private final ScheduledExecutorService executor = Executors
+			.newSingleThreadScheduledExecutor(new CustomizableThreadFactory(
+					"EurekaServerListUpdater-"));
+
+	public EurekaServerListUpdater(SpringClientFactory clientFactory,
+			DiscoveryClient discovery) {
+		this.clientFactory = clientFactory;
+		this.discovery = discovery;
+	}
+
+	@Override
+	public void onApplicationEvent(DiscoveryHeartbeatEvent event) {
+		Object value = event.getValue();
+		this.version.set(value instanceof Long ? (Long) value : null);
+		// Checks are coalesced: there is at most one waiting at a time, and it waits for
+		// the latest version
+		if (this.pending.compareAndSet(false, true)) {
+			this.executor.execute(new Check(0));
+		}
+	}
+
+	@Override
+	public void destroy() {
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Check whether the local registry has caught up with the last event.
+	 */
+	private boolean isMerged() {
+		Long expected = this.version.get();
+		if (expected == null) {
+			return true;
+		}
+		Applications applications = this.discovery.getApplications();
+		return applications != null && expected.equals(applications.getVersion());
+	}
+
+	/**
+	 * Update the server lists of the clients whose instances have changed.
+	 */
+	void update() {
+		for (String name : this.clientFactory.getClientNames()) {
+			try {
+				update(name);
+			}
+			catch (Exception e) {
+				log.warn("Could not update server list for " + name, e);
+			}
+		}
+	}
+
+	private void update(String name) {
+		ILoadBalancer loadBalancer = this.clientFactory.getLoadBalancer(name);
+		if (!(loadBalancer instanceof DynamicServerListLoadBalancer)) {
+			return;
+		}
+		DynamicServerListLoadBalancer<?> dynamic = (DynamicServerListLoadBalancer<?>) loadBalancer;
+		if (!isDiscoveryBased(dynamic.getServerListImpl())) {
+			// Any other server list (e.g. from configuration) is not in the registry, so
+			// it keeps polling
+			return;
+		}
+		long fingerprint = fingerprint(getInstances(dynamic.getClientConfig(), name));
+		Long previous = this.fingerprints.put(name, fingerprint);
+		if (previous == null) {
+			dynamic.stopServerListRefreshing();
+		}
+		if (previous == null || previous != fingerprint) {
+			log.debug("Updating server list for " + name);
+			dynamic.updateListOfServers();
+		}
+	}
+
+	private boolean isDiscoveryBased(ServerList<?> list) {
+		if (list instanceof DomainExtractingServerList) {
+			list = ((DomainExtractingServerList) list).getList();
+		}
+		return list instanceof DiscoveryEnabledNIWSServerList;
+	}
+
+	private List<InstanceInfo> getInstances(IClientConfig config, String name) {
+		// The same VIP addresses and secure flag that the server list asks Eureka for
+		String vipAddresses = name;
+		boolean secure = false;
+		if (config != null) {
+			String resolved = config.resolveDeploymentContextbasedVipAddresses();
+			if (StringUtils.hasText(resolved)) {
+				vipAddresses = resolved;
+			}
+			secure = config.getPropertyAsBoolean(CommonClientConfigKey.IsSecure, false);
+		}
+		List<InstanceInfo> instances = new ArrayList<>();
+		for (String vipAddress : StringUtils.commaDelimitedListToStringArray(vipAddresses)) {
+			instances.addAll(this.discovery.getInstancesByVipAddress(vipAddress.trim(),
+					secure));
+		}
+		return instances;
+	}
+
+	private class Check implements Runnable {
+
+		private final int retries;
+
+		public Check(int retries) {
+			this.retries = retries;
+		}
+
+		@Override
+		public void run() {
+			if (!isMerged()) {
+				if (this.retries < MAX_RETRIES) {
+					EurekaServerListUpdater.this.executor.schedule(
+							new Check(this.retries + 1), RETRY_INTERVAL,
+							TimeUnit.MILLISECONDS);
+					return;
+				}
+				log.debug("Registry not merged, checking server lists anyway");
+			}
+			EurekaServerListUpdater.this.pending.set(false);
+			update();
+		}
+
+	}
+
+	static long fingerprint(List<InstanceInfo> instances) {
+		long result = instances.size();
+		for (InstanceInfo instance : instances) {
+			// Order independent, since the registry may shuffle the instances
+			long hash = 17;
+			hash = 31 * hash + (instance.getId() == null ? 0 : instance.getId().hashCode());
+			hash = 31 * hash + (instance.getStatus() == null ? 0 : instance.getStatus().ordinal());
+			Long timestamp = instance.getLastDirtyTimestamp();
+			hash = 31 * hash + (timestamp == null ? 0 : timestamp.hashCode());
+			result += hash * 0x9E3779B97F4A7C15L;
+		}
+		return result;
+	}
+
+}
@@ -15,16 +15,21 @@
  */
 package org.springframework.cloud.netflix.ribbon.eureka;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.netflix.ribbon.RibbonAutoConfiguration;
+import org.springframework.cloud.netflix.ribbon.RibbonClientPreprocessor;
 import org.springframework.cloud.netflix.ribbon.RibbonClients;
 import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.netflix.discovery.DiscoveryClient;
+import com.netflix.discovery.EurekaClientConfig;
 import com.netflix.niws.loadbalancer.DiscoveryEnabledNIWSServerList;
 
 /**
@@ -39,4 +44,34 @@ import com.netflix.niws.loadbalancer.DiscoveryEnabledNIWSServerList;
 @AutoConfigureAfter(RibbonAutoConfiguration.class)
 @RibbonClients(defaultConfiguration = EurekaRibbonClientConfiguration.class)
 public class RibbonEurekaAutoConfiguration {
+
+	@Autowired(required = false)
+	private EurekaClientConfig clientConfig;
+
+	/**
+	 * Applies the same defaults as {@link EurekaRibbonClientConfiguration} to clients
+	 * that are created without an ApplicationContext of their own.
+	 */
+	@Bean
+	public RibbonClientPreprocessor eurekaRibbonClientPreprocessor() {
+		return new RibbonClientPreprocessor() {
+			@Override
+			public void preprocess(String name) {
+				new EurekaRibbonClientConfiguration(clientConfig, name).preprocess();
+			}
+		};
+	}
+
+	@Configuration
+	@ConditionalOnExpression("${ribbon.eureka.push.enabled:false}")
+	protected static class RibbonEurekaPushConfiguration {
+
+		@Bean
+		public EurekaServerListUpdater eurekaServerListUpdater(
+				SpringClientFactory clientFactory, DiscoveryClient discovery) {
+			return new EurekaServerListUpdater(clientFactory, discovery);
+		}
+
+	}
+
 }
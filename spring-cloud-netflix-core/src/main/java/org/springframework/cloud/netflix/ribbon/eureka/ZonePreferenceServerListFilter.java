@@ -17,6 +17,7 @@ package org.springframework.cloud.netflix.ribbon.eureka;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -29,7 +30,8 @@ import com.netflix.loadbalancer.ZoneAffinityServerListFilter;
 
 /**
  * A filter that actively prefers the local zone (as defined by the deployment context, or
- * the Eureka instance metadata).
+ * the Eureka instance metadata). The local servers are picked out in a single pass over
+ * the list, so the cost of filtering grows only linearly with the number of servers.
  * 
  * @author Dave Syer
  *
@@ -45,16 +47,16 @@ public class ZonePreferenceServerListFilter extends ZoneAffinityServerListFilter
 	public void initWithNiwsConfig(IClientConfig niwsClientConfig) {
 		super.initWithNiwsConfig(niwsClientConfig);
 		if (ConfigurationManager.getDeploymentContext() != null) {
-			zone = ConfigurationManager.getDeploymentContext().getValue(ContextKey.zone);
+			String zone = ConfigurationManager.getDeploymentContext().getValue(ContextKey.zone);
+			this.zone = zone == null ? null : zone.toLowerCase(Locale.ENGLISH);
 		}
 	}
 
 	@Override
 	public List<Server> getFilteredListOfServers(List<Server> servers) {
-		List<Server> output = super.getFilteredListOfServers(servers);
-		if (zone != null && output.size() == servers.size()) {
+		if (zone != null && servers != null) {
 			List<Server> local = new ArrayList<Server>();
-			for (Server server : output) {
+			for (Server server : servers) {
 				if (zone.equalsIgnoreCase(server.getZone())) {
 					local.add(server);
 				}
@@ -63,7 +65,8 @@ public class ZonePreferenceServerListFilter extends ZoneAffinityServerListFilter
 				return local;
 			}
 		}
-		return output;
+		// No local servers: the zone affinity rules decide what to do
+		return super.getFilteredListOfServers(servers);
 	}
 
 }
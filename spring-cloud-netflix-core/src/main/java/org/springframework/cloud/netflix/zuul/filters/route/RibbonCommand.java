@@ -32,6 +32,7 @@ public class RibbonCommand extends HystrixCommand<HttpResponse> {
     private MultivaluedMap<String, String> headers;
     private MultivaluedMap<String, String> params;
     private InputStream requestEntity;
+    private Object loadBalancerKey;
 
     public RibbonCommand(RestClient restClient,
                          Verb verb,
@@ -49,6 +50,17 @@ public class RibbonCommand extends HystrixCommand<HttpResponse> {
                          MultivaluedMap<String, String> headers,
                          MultivaluedMap<String, String> params,
                          InputStream requestEntity) throws URISyntaxException {
+        this(commandKey, restClient, verb, uri, headers, params, requestEntity, null);
+    }
+
+    public RibbonCommand(String commandKey,
+                         RestClient restClient,
+                         Verb verb,
+                         String uri,
+                         MultivaluedMap<String, String> headers,
+                         MultivaluedMap<String, String> params,
+                         InputStream requestEntity,
+                         Object loadBalancerKey) throws URISyntaxException {
 
         super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey(commandKey)).andCommandPropertiesDefaults(
                 // we want to default to semaphore-isolation since this wraps
@@ -63,6 +75,7 @@ public class RibbonCommand extends HystrixCommand<HttpResponse> {
         this.headers = headers;
         this.params = params;
         this.requestEntity = requestEntity;
+        this.loadBalancerKey = loadBalancerKey;
     }
 
     @Override
@@ -83,6 +96,10 @@ public class RibbonCommand extends HystrixCommand<HttpResponse> {
                 uri(uri).
                 entity(requestEntity);
 
+        if (loadBalancerKey != null) {
+            builder.loadBalancerKey(loadBalancerKey);
+        }
+
         for (String name : headers.keySet()) {
             List<String> values = headers.get(name);
             for (String value : values) {
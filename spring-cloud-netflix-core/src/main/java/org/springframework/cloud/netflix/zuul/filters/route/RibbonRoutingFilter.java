@@ -14,6 +14,7 @@ import javax.ws.rs.core.MultivaluedMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cloud.netflix.ribbon.ConsistentHashKey;
 import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
 import org.springframework.cloud.netflix.zuul.filters.ProxyRequestHelper;
 import org.springframework.util.LinkedMultiValueMap;
@@ -87,8 +88,8 @@ public class RibbonRoutingFilter extends ZuulFilter {
 		uri = uri.replace("//", "/");
 
 		try {
-			HttpResponse response = forward(restClient, verb, uri, headers, params,
-					requestEntity);
+			HttpResponse response = forward(restClient, serviceId, verb, uri, headers,
+					params, requestEntity);
 			setResponse(response);
 			return response;
 		}
@@ -99,15 +100,21 @@ public class RibbonRoutingFilter extends ZuulFilter {
 		return null;
 	}
 
-	private HttpResponse forward(RestClient restClient, Verb verb, String uri,
-			MultiValueMap<String, String> headers, MultiValueMap<String, String> params,
-			InputStream requestEntity) throws Exception {
+	private HttpResponse forward(RestClient restClient, String serviceId, Verb verb,
+			String uri, MultiValueMap<String, String> headers,
+			MultiValueMap<String, String> params, InputStream requestEntity)
+			throws Exception {
 
 		Map<String, Object> info = helper.debug(verb.verb(), uri, headers, params,
 				requestEntity);
 
-		RibbonCommand command = new RibbonCommand(restClient, verb, uri,
-				convertHeaders(headers), convertHeaders(params), requestEntity);
+		ConsistentHashKey hashKey = ConsistentHashKey.forClient(serviceId);
+		Object loadBalancerKey = hashKey == null ? null : hashKey.loadBalancerKey(uri,
+				headers, params);
+
+		RibbonCommand command = new RibbonCommand("default", restClient, verb, uri,
+				convertHeaders(headers), convertHeaders(params), requestEntity,
+				loadBalancerKey);
 		try {
 			HttpResponse response = command.execute();
 			helper.appendDebug(info, response.getStatus(),
@@ -0,0 +1,192 @@
+package org.springframework.cloud.netflix.feign;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.web.HttpMessageConverters;
+import org.springframework.util.StreamUtils;
+
+import com.netflix.config.ConfigurationManager;
+
+import feign.Client;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+
+/**
+ * @author Dave Syer
+ */
+public class CompressingClientTests {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private Request sent;
+
+    private Response received = Response.create(200, "OK",
+            Collections.<String, Collection<String>> emptyMap(),
+            new ByteArrayInputStream(new byte[0]), 0);
+
+    private Client delegate = new Client() {
+        @Override
+        public Response execute(Request request, Request.Options options) throws IOException {
+            sent = request;
+            return received;
+        }
+    };
+
+    private CompressingClient client = new CompressingClient(delegate, "stores");
+
+    @After
+    public void clear() {
+        ConfigurationManager.getConfigInstance().clearProperty("feign.compression.request.enabled");
+        ConfigurationManager.getConfigInstance().clearProperty("feign.compression.stores.request.enabled");
+        ConfigurationManager.getConfigInstance().clearProperty("feign.compression.stores.request.minRequestSize");
+        ConfigurationManager.getConfigInstance().clearProperty("feign.compression.stores.response.enabled");
+    }
+
+    @Test
+    public void disabledByDefault() throws Exception {
+        RequestTemplate template = template("http://stores/stores", new byte[4096]);
+        client.apply(template);
+        assertNull(template.headers().get("Content-Encoding"));
+        assertNull(template.headers().get("Accept-Encoding"));
+        assertEquals(4096, template.body().length);
+    }
+
+    @Test
+    public void compressesLargeBody() throws Exception {
+        ConfigurationManager.getConfigInstance().setProperty("feign.compression.stores.request.enabled", "true");
+        byte[] body = new byte[4096];
+        Arrays.fill(body, (byte) 'a');
+        RequestTemplate template = template("http://stores/stores", body);
+        client.apply(template);
+        assertEquals(Collections.singletonList("gzip"), template.headers().get("Content-Encoding"));
+        assertEquals(Collections.singletonList(String.valueOf(template.body().length)),
+                template.headers().get("Content-Length"));
+        assertArrayEquals(body, StreamUtils.copyToByteArray(new GZIPInputStream(
+                new ByteArrayInputStream(template.body()))));
+    }
+
+    @Test
+    public void compressedOnlyOnce() throws Exception {
+        ConfigurationManager.getConfigInstance().setProperty("feign.compression.stores.request.enabled", "true");
+        RequestTemplate template = template("http://stores/stores", new byte[4096]);
+        client.apply(template);
+        byte[] compressed = template.body();
+        // Feign applies the interceptors again when it retries a request
+        client.apply(template);
+        assertArrayEquals(compressed, template.body());
+    }
+
+    @Test
+    public void smallBodyNotCompressed() throws Exception {
+        ConfigurationManager.getConfigInstance().setProperty("feign.compression.stores.request.enabled", "true");
+        ConfigurationManager.getConfigInstance().setProperty("feign.compression.stores.request.minRequestSize", "100");
+        RequestTemplate template = template("http://stores/stores", new byte[10]);
+        client.apply(template);
+        assertNull(template.headers().get("Content-Encoding"));
+        assertEquals(10, template.body().length);
+    }
+
+    @Test
+    public void settingsPerClient() throws Exception {
+        ConfigurationManager.getConfigInstance().setProperty("feign.compression.request.enabled", "true");
+        ConfigurationManager.getConfigInstance().setProperty("feign.compression.stores.request.enabled", "false");
+        RequestTemplate template = template("http://stores/stores", new byte[4096]);
+        client.apply(template);
+        assertNull(template.headers().get("Content-Encoding"));
+        template = template("http://customers/customers", new byte[4096]);
+        new CompressingClient(delegate, "customers").apply(template);
+        assertEquals(Collections.singletonList("gzip"), template.headers().get("Content-Encoding"));
+    }
+
+    @Test
+    public void settingsByNameNotRequestHost() throws Exception {
+        ConfigurationManager.getConfigInstance().setProperty("feign.compression.stores.request.enabled", "true");
+        // A load balanced request is sent to a server
+        RequestTemplate template = template("http://10.0.0.1:8080/stores", new byte[4096]);
+        client.apply(template);
+        assertEquals(Collections.singletonList("gzip"), template.headers().get("Content-Encoding"));
+    }
+
+    @Test
+    public void requestSentUnchanged() throws Exception {
+        ConfigurationManager.getConfigInstance().setProperty("feign.compression.stores.request.enabled", "true");
+        Request request = template("http://stores/stores", new byte[4096]).request();
+        client.execute(request, new Request.Options());
+        assertSame(request, sent);
+    }
+
+    @Test
+    public void acceptEncodingAndDecompress() throws Exception {
+        ConfigurationManager.getConfigInstance().setProperty("feign.compression.stores.response.enabled", "true");
+        byte[] compressed = gzip("caf\u00e9".getBytes(UTF_8));
+        Map<String, Collection<String>> headers = new LinkedHashMap<>();
+        headers.put("Content-Type", Collections.singletonList("text/plain;charset=UTF-8"));
+        headers.put("Content-Encoding", Collections.singletonList("gzip"));
+        headers.put("Content-Length", Collections.singletonList(String.valueOf(compressed.length)));
+        received = Response.create(200, "OK", headers, new ByteArrayInputStream(compressed),
+                compressed.length);
+        RequestTemplate template = template("http://stores/stores", null);
+        client.apply(template);
+        assertEquals(Collections.singletonList("gzip"), template.headers().get("Accept-Encoding"));
+        Response response = client.execute(template.request(), new Request.Options());
+        assertNull(response.headers().get("Content-Encoding"));
+        assertNull(response.headers().get("Content-Length"));
+        assertEquals("caf\u00e9", new SpringDecoder(new HttpMessageConverters()).decode(response, String.class));
+    }
+
+    @Test
+    public void errorResponseDecompressed() throws Exception {
+        byte[] compressed = gzip("not found".getBytes(UTF_8));
+        Map<String, Collection<String>> headers = new LinkedHashMap<>();
+        headers.put("Content-Encoding", Collections.singletonList("gzip"));
+        received = Response.create(404, "Not Found", headers, new ByteArrayInputStream(compressed),
+                compressed.length);
+        Response response = client.execute(template("http://stores/stores", null).request(),
+                new Request.Options());
+        assertEquals("not found", StreamUtils.copyToString(response.body().asInputStream(), UTF_8));
+    }
+
+    @Test
+    public void emptyCompressedResponse() throws Exception {
+        Map<String, Collection<String>> headers = new LinkedHashMap<>();
+        headers.put("Content-Encoding", Collections.singletonList("gzip"));
+        received = Response.create(204, "No Content", headers, new ByteArrayInputStream(new byte[0]), 0);
+        Response response = client.execute(template("http://stores/stores", null).request(),
+                new Request.Options());
+        assertNull(response.body());
+    }
+
+    private RequestTemplate template(String url, byte[] body) {
+        RequestTemplate template = new RequestTemplate().method("POST").append(url);
+        if (body != null) {
+            template.body(body, UTF_8);
+        }
+        return template;
+    }
+
+    private byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+        gzip.write(body);
+        gzip.close();
+        return bytes.toByteArray();
+    }
+}
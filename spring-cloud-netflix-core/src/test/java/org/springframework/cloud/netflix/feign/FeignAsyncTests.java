@@ -0,0 +1,192 @@
+package org.springframework.cloud.netflix.feign;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.IntegrationTest;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.cloud.netflix.ribbon.RibbonClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.Server;
+
+import feign.FeignException;
+import rx.Observable;
+
+/**
+ * @author Dave Syer
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = FeignAsyncTests.Application.class)
+@WebAppConfiguration
+@IntegrationTest({ "server.port=0", "spring.application.name=feignasynctest" })
+@DirtiesContext
+public class FeignAsyncTests extends FeignConfiguration {
+
+    @Value("${local.server.port}")
+    private int port = 0;
+
+    public TestClient testClient() {
+        String url = "http://localhost:" + port;
+        return async(TestClient.class, feign().target(TestClient.class, url), url, false);
+    }
+
+    public TestClient loadBalancedClient() {
+        return loadBalance(TestClient.class, "http://localapp");
+    }
+
+    protected static interface TestClient {
+        @RequestMapping(method = RequestMethod.GET, value = "/hello")
+        public Hello getHello();
+
+        @RequestMapping(method = RequestMethod.GET, value = "/hello")
+        public Future<Hello> getHelloFuture();
+
+        @RequestMapping(method = RequestMethod.GET, value = "/hellos")
+        public ListenableFuture<List<Hello>> getHellosFuture();
+
+        @RequestMapping(method = RequestMethod.GET, value = "/hello")
+        public Observable<Hello> getHelloObservable();
+
+        @RequestMapping(method = RequestMethod.POST, value = "/noContent")
+        public Future<Void> noContent();
+
+        @RequestMapping(method = RequestMethod.GET, value = "/missing")
+        public Future<Hello> getMissing();
+    }
+
+    @Configuration
+    @EnableAutoConfiguration
+    @RestController
+    @RibbonClient(name = "localapp", configuration = LocalRibbonClientConfiguration.class)
+    protected static class Application {
+
+        @RequestMapping(method = RequestMethod.GET, value = "/hello")
+        public Hello getHello() {
+            return new Hello("hello world 1");
+        }
+
+        @RequestMapping(method = RequestMethod.GET, value = "/hellos")
+        public List<Hello> getHellos() {
+            ArrayList<Hello> hellos = new ArrayList<>();
+            hellos.add(new Hello("hello world 1"));
+            hellos.add(new Hello("oi terra 2"));
+            return hellos;
+        }
+
+        @RequestMapping(method = RequestMethod.POST, value = "/noContent")
+        public void noContent() {
+        }
+    }
+
+    @Test
+    public void testSynchronousMethod() {
+        assertEquals(new Hello("hello world 1"), testClient().getHello());
+    }
+
+    @Test
+    public void testFuture() throws Exception {
+        Hello hello = testClient().getHelloFuture().get(5, TimeUnit.SECONDS);
+        assertEquals("hello didn't match", new Hello("hello world 1"), hello);
+    }
+
+    @Test
+    public void testListenableFutureWithParameterizedType() throws Exception {
+        List<Hello> hellos = testClient().getHellosFuture().get(5, TimeUnit.SECONDS);
+        assertNotNull("hellos was null", hellos);
+        assertEquals("hellos was not the right size", 2, hellos.size());
+        assertEquals("first hello didn't match", new Hello("hello world 1"), hellos.get(0));
+    }
+
+    @Test
+    public void testObservable() {
+        Hello hello = testClient().getHelloObservable().toBlocking().single();
+        assertEquals("hello didn't match", new Hello("hello world 1"), hello);
+    }
+
+    @Test
+    public void testVoidFuture() throws Exception {
+        assertNull(testClient().noContent().get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testErrorInFuture() throws Exception {
+        Future<Hello> future = testClient().getMissing();
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        }
+        catch (ExecutionException e) {
+            assertTrue("Wrong cause: " + e.getCause(), e.getCause() instanceof FeignException);
+        }
+    }
+
+    @Test
+    public void testLoadBalancedFuture() throws Exception {
+        Hello hello = loadBalancedClient().getHelloFuture().get(5, TimeUnit.SECONDS);
+        assertEquals("hello didn't match", new Hello("hello world 1"), hello);
+    }
+
+    @Test
+    public void testLoadBalancedObservable() {
+        Hello hello = loadBalancedClient().getHelloObservable().toBlocking().single();
+        assertEquals("hello didn't match", new Hello("hello world 1"), hello);
+    }
+
+    @Test
+    public void testProxyEquality() {
+        TestClient client = testClient();
+        assertEquals(client, client);
+        assertEquals(client.hashCode(), client.hashCode());
+    }
+
+    // Load balancer with a fixed server list for "localapp" pointing to this server
+    @Configuration
+    protected static class LocalRibbonClientConfiguration {
+
+        @Value("${local.server.port}")
+        private int port;
+
+        @Bean
+        public ILoadBalancer ribbonLoadBalancer() {
+            BaseLoadBalancer balancer = new BaseLoadBalancer();
+            balancer.setServersList(Arrays.asList(new Server("localhost", port)));
+            return balancer;
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Hello {
+        private String message;
+    }
+}
@@ -0,0 +1,131 @@
+package org.springframework.cloud.netflix.feign;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.beans.factory.support.SimpleBeanDefinitionRegistry;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.type.StandardAnnotationMetadata;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * @author Dave Syer
+ */
+public class FeignClientScanRegistrarTests {
+
+    /**
+     * Can load the annotation, so its attributes can be read, but not the test classes.
+     */
+    private static final ClassLoader ANNOTATIONS = new ClassLoader(null) {
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (FeignClient.class.getName().equals(name)) {
+                return FeignClient.class;
+            }
+            throw new ClassNotFoundException(name);
+        }
+    };
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private FeignClientScanRegistrar registrar = new FeignClientScanRegistrar();
+
+    private MockEnvironment environment = new MockEnvironment();
+
+    private SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+
+    @Before
+    public void init() {
+        registrar.setEnvironment(environment);
+    }
+
+    @Test
+    public void scansWithoutIndex() {
+        registrar.setBeanClassLoader(getClass().getClassLoader());
+        registrar.setResourceLoader(new DefaultResourceLoader(getClass().getClassLoader()));
+        environment.setProperty("feign.index.enabled", "false");
+        register();
+        assertEquals("{feignClientTests$TestClient=" + FeignClientTests.TestClient.class.getName() + "}",
+                clients().toString());
+    }
+
+    @Test
+    public void readsIndex() throws Exception {
+        File root = indexedRoot(FeignClientTests.TestClient.class.getName() + "\n"
+                + FeignClientTests.class.getPackage().getName() + ".Missing\n"
+                + "com.example.OtherClient\n");
+        copyClass(root, FeignClientTests.TestClient.class);
+        useRoots(ANNOTATIONS, root);
+        register();
+        assertEquals("{feignClientTests$TestClient=" + FeignClientTests.TestClient.class.getName() + "}",
+                clients().toString());
+    }
+
+    @Test
+    public void indexedRootIsNotScanned() throws Exception {
+        File root = indexedRoot("com.example.OtherClient\n");
+        copyClass(root, FeignClientTests.TestClient.class);
+        useRoots(ANNOTATIONS, root);
+        register();
+        assertEquals(0, clients().size());
+    }
+
+    @Test
+    public void scansRootsWithoutIndex() throws Exception {
+        // The test classes have no index, so they are still scanned
+        useRoots(getClass().getClassLoader(), indexedRoot("com.example.OtherClient\n"));
+        register();
+        assertEquals("{feignClientTests$TestClient=" + FeignClientTests.TestClient.class.getName() + "}",
+                clients().toString());
+    }
+
+    private File indexedRoot(String content) throws Exception {
+        File folder = temp.newFolder();
+        File index = new File(folder, FeignClientScanRegistrar.INDEX_LOCATION);
+        index.getParentFile().mkdirs();
+        FileCopyUtils.copy(content.getBytes(Charset.forName("UTF-8")), index);
+        return folder;
+    }
+
+    private void copyClass(File root, Class<?> type) throws Exception {
+        String path = ClassUtils.convertClassNameToResourcePath(type.getName()) + ".class";
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        FileCopyUtils.copy(FileCopyUtils.copyToByteArray(
+                getClass().getClassLoader().getResourceAsStream(path)), file);
+    }
+
+    private void useRoots(ClassLoader parent, File root) throws Exception {
+        ClassLoader loader = new URLClassLoader(new URL[] { root.toURI().toURL() }, parent);
+        registrar.setBeanClassLoader(loader);
+        registrar.setResourceLoader(new DefaultResourceLoader(loader));
+    }
+
+    private void register() {
+        registrar.registerBeanDefinitions(new StandardAnnotationMetadata(
+                FeignClientTests.Application.class), registry);
+    }
+
+    private Map<String, Object> clients() {
+        Map<String, Object> clients = new TreeMap<>();
+        for (String name : registry.getBeanDefinitionNames()) {
+            clients.put(name, registry.getBeanDefinition(name).getPropertyValues()
+                    .getPropertyValue("type").getValue());
+        }
+        return clients;
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.springframework.cloud.netflix.feign;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.IntegrationTest;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * @author Dave Syer
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = FeignCollapserTests.Application.class)
+@WebAppConfiguration
+@IntegrationTest({ "server.port=0", "spring.application.name=feigncollapsertest",
+        "feign.hystrix.feigncollapsertest.collapser.timerDelayInMilliseconds=200" })
+@DirtiesContext
+public class FeignCollapserTests extends FeignConfiguration {
+
+    private static final AtomicInteger batches = new AtomicInteger();
+
+    @Value("${local.server.port}")
+    private int port = 0;
+
+    private <T> T testClient(Class<T> type) {
+        return hystrix(type, feign().target(type, "http://localhost:" + port),
+                "feigncollapsertest", null);
+    }
+
+    private TestClient otherClient() {
+        return hystrix(TestClient.class, feign().target(TestClient.class,
+                "http://localhost:" + port + "/other"), "othercollapsertest", null);
+    }
+
+    protected static interface TestClient {
+        @FeignCollapser(batchMethod = "getHellos")
+        @RequestMapping(method = RequestMethod.GET, value = "/hello/{id}")
+        public Future<Hello> getHello(@PathVariable("id") String id);
+
+        @RequestMapping(method = RequestMethod.POST, value = "/hellos", consumes = "application/json")
+        public List<Hello> getHellos(List<String> ids);
+    }
+
+    protected static interface InvalidClient {
+        @FeignCollapser(batchMethod = "getHellos")
+        @RequestMapping(method = RequestMethod.GET, value = "/hello/{id}")
+        public Hello getHello(@PathVariable("id") String id);
+
+        @RequestMapping(method = RequestMethod.POST, value = "/hellos", consumes = "application/json")
+        public Hello getHellos(List<String> ids);
+    }
+
+    @Configuration
+    @EnableAutoConfiguration
+    @RestController
+    protected static class Application {
+
+        @RequestMapping(method = RequestMethod.POST, value = "/hellos")
+        public List<Hello> getHellos(@RequestBody List<String> ids) {
+            batches.incrementAndGet();
+            List<Hello> hellos = new ArrayList<>();
+            for (String id : ids) {
+                hellos.add(new Hello("hello " + id));
+            }
+            return hellos;
+        }
+
+        @RequestMapping(method = RequestMethod.POST, value = "/other/hellos")
+        public List<Hello> getOtherHellos(@RequestBody List<String> ids) {
+            List<Hello> hellos = new ArrayList<>();
+            for (String id : ids) {
+                hellos.add(new Hello("other " + id));
+            }
+            return hellos;
+        }
+    }
+
+    @Test
+    public void testCallsCollapsedIntoOneBatch() throws Exception {
+        TestClient client = testClient(TestClient.class);
+        int before = batches.get();
+        Future<Hello> first = client.getHello("1");
+        Future<Hello> second = client.getHello("2");
+        Future<Hello> third = client.getHello("3");
+        assertEquals(new Hello("hello 1"), first.get(5, TimeUnit.SECONDS));
+        assertEquals(new Hello("hello 2"), second.get(5, TimeUnit.SECONDS));
+        assertEquals(new Hello("hello 3"), third.get(5, TimeUnit.SECONDS));
+        assertEquals(1, batches.get() - before);
+    }
+
+    @Test
+    public void testClientsWithSameInterfaceCollapsedSeparately() throws Exception {
+        TestClient client = testClient(TestClient.class);
+        TestClient other = otherClient();
+        Future<Hello> first = client.getHello("1");
+        Future<Hello> second = other.getHello("2");
+        assertEquals(new Hello("hello 1"), first.get(5, TimeUnit.SECONDS));
+        assertEquals(new Hello("other 2"), second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBatchMethodMustReturnCollection() {
+        testClient(InvalidClient.class);
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Hello {
+        private String message;
+    }
+}
@@ -0,0 +1,261 @@
+package org.springframework.cloud.netflix.feign;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.IntegrationTest;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import rx.Observable;
+
+import feign.FeignException;
+import feign.codec.ErrorDecoder;
+
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandMetrics;
+import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
+
+/**
+ * @author Dave Syer
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = FeignHystrixTests.Application.class)
+@WebAppConfiguration
+@IntegrationTest({ "server.port=0", "spring.application.name=feignhystrixtest",
+        "feign.hystrix.semaphoreclient.isolation=SEMAPHORE" })
+@DirtiesContext
+public class FeignHystrixTests extends FeignConfiguration {
+
+    @Value("${local.server.port}")
+    private int port = 0;
+
+    private static CountDownLatch slow = new CountDownLatch(1);
+
+    @Override
+    protected ErrorDecoder errorDecoder() {
+        return HystrixInvocationHandler.badRequests(super.errorDecoder());
+    }
+
+    private TestClient testClient(TestClient fallback) {
+        return client(TestClient.class, "feignhystrixtest", fallback);
+    }
+
+    private <T> T client(Class<T> type, String name, T fallback) {
+        String url = "http://localhost:" + port;
+        return hystrix(type, async(type, feign().target(type, url), url, false), name,
+                fallback);
+    }
+
+    protected static interface TestClient {
+        @RequestMapping(method = RequestMethod.GET, value = "/hello")
+        public Hello getHello();
+
+        @RequestMapping(method = RequestMethod.GET, value = "/hello")
+        public Future<Hello> getHelloFuture();
+
+        @RequestMapping(method = RequestMethod.GET, value = "/hello")
+        public ListenableFuture<Hello> getHelloListenableFuture();
+
+        @RequestMapping(method = RequestMethod.GET, value = "/hello")
+        public Observable<Hello> getHelloObservable();
+
+        @RequestMapping(method = RequestMethod.GET, value = "/missing")
+        public Hello getMissing();
+
+        @RequestMapping(method = RequestMethod.GET, value = "/missing")
+        public Future<Hello> getMissingFuture();
+
+        @RequestMapping(method = RequestMethod.GET, value = "/fail")
+        public Hello getFail();
+    }
+
+    protected static interface SemaphoreClient {
+        @RequestMapping(method = RequestMethod.GET, value = "/hello")
+        public Hello getHello();
+
+        @RequestMapping(method = RequestMethod.GET, value = "/slow")
+        public Future<Hello> getSlowFuture();
+    }
+
+    protected static class Fallback implements TestClient {
+
+        @Override
+        public Hello getHello() {
+            return new Hello("fallback");
+        }
+
+        @Override
+        public Future<Hello> getHelloFuture() {
+            return null;
+        }
+
+        @Override
+        public ListenableFuture<Hello> getHelloListenableFuture() {
+            return null;
+        }
+
+        @Override
+        public Observable<Hello> getHelloObservable() {
+            return null;
+        }
+
+        @Override
+        public Hello getMissing() {
+            return new Hello("fallback");
+        }
+
+        @Override
+        public Future<Hello> getMissingFuture() {
+            return null;
+        }
+
+        @Override
+        public Hello getFail() {
+            return new Hello("fallback");
+        }
+    }
+
+    @Configuration
+    @EnableAutoConfiguration
+    @RestController
+    protected static class Application {
+
+        @RequestMapping(method = RequestMethod.GET, value = "/hello")
+        public Hello getHello() {
+            return new Hello("hello world 1");
+        }
+
+        @RequestMapping(method = RequestMethod.GET, value = "/fail")
+        public Hello getFail() {
+            throw new IllegalStateException("failed");
+        }
+
+        @RequestMapping(method = RequestMethod.GET, value = "/slow")
+        public Hello getSlow() throws InterruptedException {
+            slow.await(5, TimeUnit.SECONDS);
+            return new Hello("slow");
+        }
+    }
+
+    @Test
+    public void testSynchronousMethod() {
+        assertEquals(new Hello("hello world 1"), testClient(null).getHello());
+        HystrixCommandMetrics metrics = HystrixCommandMetrics.getInstance(HystrixCommandKey.Factory
+                .asKey(TestClient.class.getName() + "#getHello()"));
+        assertNotNull("command not registered", metrics);
+        assertEquals("feignhystrixtest", metrics.getCommandGroup().name());
+    }
+
+    @Test
+    public void testFuture() throws Exception {
+        Hello hello = testClient(null).getHelloFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(new Hello("hello world 1"), hello);
+    }
+
+    @Test
+    public void testListenableFuture() throws Exception {
+        Hello hello = testClient(null).getHelloListenableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(new Hello("hello world 1"), hello);
+    }
+
+    @Test
+    public void testObservable() {
+        Hello hello = testClient(null).getHelloObservable().toBlocking().single();
+        assertEquals(new Hello("hello world 1"), hello);
+    }
+
+    @Test
+    public void testFallback() {
+        assertEquals(new Hello("fallback"), testClient(new Fallback()).getFail());
+    }
+
+    @Test
+    public void testNoFallback() {
+        try {
+            testClient(null).getFail();
+            fail("Expected HystrixRuntimeException");
+        }
+        catch (HystrixRuntimeException e) {
+            assertNotNull(e.getCause());
+        }
+    }
+
+    @Test
+    public void testClientErrorSkipsFallback() {
+        try {
+            testClient(new Fallback()).getMissing();
+            fail("Expected FeignException");
+        }
+        catch (FeignException e) {
+            assertTrue("Wrong message: " + e.getMessage(), e.getMessage().startsWith("status 404"));
+        }
+        HystrixCommandMetrics metrics = HystrixCommandMetrics.getInstance(HystrixCommandKey.Factory
+                .asKey(TestClient.class.getName() + "#getMissing()"));
+        assertEquals(0, metrics.getHealthCounts().getErrorCount());
+    }
+
+    @Test
+    public void testClientErrorInFutureSkipsFallback() throws Exception {
+        try {
+            testClient(new Fallback()).getMissingFuture().get(5, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        }
+        catch (ExecutionException e) {
+            assertTrue("Wrong cause: " + e.getCause(), e.getCause() instanceof FeignException);
+        }
+        HystrixCommandMetrics metrics = HystrixCommandMetrics.getInstance(HystrixCommandKey.Factory
+                .asKey(TestClient.class.getName() + "#getMissingFuture()"));
+        assertEquals(0, metrics.getHealthCounts().getErrorCount());
+    }
+
+    @Test
+    public void testSemaphoreIsolation() {
+        SemaphoreClient client = client(SemaphoreClient.class, "semaphoreclient", null);
+        assertEquals(new Hello("hello world 1"), client.getHello());
+        HystrixCommandMetrics metrics = HystrixCommandMetrics.getInstance(HystrixCommandKey.Factory
+                .asKey(SemaphoreClient.class.getName() + "#getHello()"));
+        assertTrue(metrics.getProperties().executionIsolationStrategy().get() == ExecutionIsolationStrategy.SEMAPHORE);
+    }
+
+    @Test
+    public void testFutureReturnedBeforeResponseWithSemaphoreIsolation() throws Exception {
+        SemaphoreClient client = client(SemaphoreClient.class, "semaphoreclient", null);
+        // The server does not answer until the latch is released
+        Future<Hello> future = client.getSlowFuture();
+        assertFalse("Future should not be done yet", future.isDone());
+        slow.countDown();
+        assertEquals(new Hello("slow"), future.get(5, TimeUnit.SECONDS));
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Hello {
+        private String message;
+    }
+}
@@ -0,0 +1,69 @@
+package org.springframework.cloud.netflix.feign;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+
+/**
+ * @author Dave Syer
+ */
+public class MessageConverterCacheTests {
+
+    private HttpMessageConverter<?> strings = mock(HttpMessageConverter.class);
+
+    private HttpMessageConverter<?> json = mock(HttpMessageConverter.class);
+
+    private List<HttpMessageConverter<?>> converters = Arrays.<HttpMessageConverter<?>> asList(
+            strings, json);
+
+    private MessageConverterCache cache = new MessageConverterCache() {
+        @Override
+        protected boolean canHandle(HttpMessageConverter<?> converter, Type type,
+                MediaType mediaType) {
+            return converter.canWrite((Class<?>) type, mediaType);
+        }
+    };
+
+    @Test
+    public void convertersScannedOnce() {
+        when(json.canWrite(Object.class, MediaType.APPLICATION_JSON)).thenReturn(true);
+        assertSame(json, cache.find(converters, Object.class, MediaType.APPLICATION_JSON));
+        assertSame(json, cache.find(converters, Object.class, MediaType.APPLICATION_JSON));
+        verify(strings, times(1)).canWrite(Object.class, MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    public void nullMediaType() {
+        when(strings.canWrite(String.class, null)).thenReturn(true);
+        assertSame(strings, cache.find(converters, String.class, null));
+        assertSame(strings, cache.find(converters, String.class, null));
+        verify(strings, times(1)).canWrite(String.class, null);
+    }
+
+    @Test
+    public void noConverter() {
+        assertNull(cache.find(converters, Object.class, MediaType.TEXT_XML));
+    }
+
+    @Test
+    public void cacheDroppedWhenConvertersChange() {
+        when(json.canWrite(Object.class, MediaType.APPLICATION_JSON)).thenReturn(true);
+        assertSame(json, cache.find(converters, Object.class, MediaType.APPLICATION_JSON));
+        when(strings.canWrite(Object.class, MediaType.APPLICATION_JSON)).thenReturn(true);
+        List<HttpMessageConverter<?>> changed = new ArrayList<>(converters);
+        assertSame(strings, cache.find(changed, Object.class, MediaType.APPLICATION_JSON));
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.springframework.cloud.netflix.feign;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.Charset;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.web.HttpMessageConverters;
+
+import feign.RequestTemplate;
+
+/**
+ * @author Dave Syer
+ */
+public class SpringEncoderTests {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    private SpringEncoder encoder = new SpringEncoder();
+
+    @Before
+    public void init() {
+        encoder.messageConverters = new HttpMessageConverters();
+    }
+
+    @Test
+    public void charsetFromContentType() {
+        RequestTemplate request = new RequestTemplate().header("Content-Type",
+                "text/plain;charset=ISO-8859-1");
+        encoder.encode("caf\u00e9", request);
+        assertArrayEquals("caf\u00e9".getBytes(ISO_8859_1), request.body());
+        assertEquals(ISO_8859_1, request.charset());
+    }
+
+    @Test
+    public void defaultCharset() {
+        RequestTemplate request = new RequestTemplate().header("Content-Type",
+                "application/octet-stream");
+        encoder.encode(new byte[] { 1, 2, 3 }, request);
+        assertArrayEquals(new byte[] { 1, 2, 3 }, request.body());
+        assertEquals(UTF_8, request.charset());
+    }
+
+    @Test
+    public void bufferReusedWithoutSharingBodies() {
+        RequestTemplate first = new RequestTemplate().header("Content-Type",
+                "text/plain;charset=UTF-8");
+        RequestTemplate second = new RequestTemplate().header("Content-Type",
+                "text/plain;charset=UTF-8");
+        encoder.encode("first", first);
+        encoder.encode("2nd", second);
+        assertEquals("first", new String(first.body(), UTF_8));
+        assertEquals("2nd", new String(second.body(), UTF_8));
+    }
+
+    @Test
+    public void largeBufferNotRetained() {
+        encoder.setMaxRetainedBufferSize(16);
+        RequestTemplate request = new RequestTemplate().header("Content-Type",
+                "text/plain;charset=UTF-8");
+        String body = new String(new char[5000]).replace('\0', 'a');
+        encoder.encode(body, request);
+        assertEquals(5000, request.body().length);
+        assertEquals(0, encoder.getPooledBufferCount());
+    }
+
+    @Test
+    public void smallBufferRetained() {
+        RequestTemplate request = new RequestTemplate().header("Content-Type",
+                "text/plain;charset=UTF-8");
+        encoder.encode("small", request);
+        assertEquals(1, encoder.getPooledBufferCount());
+        encoder.encode("small", request);
+        assertEquals(1, encoder.getPooledBufferCount());
+    }
+
+}
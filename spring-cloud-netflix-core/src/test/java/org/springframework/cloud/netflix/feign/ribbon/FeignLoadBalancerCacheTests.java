@@ -0,0 +1,78 @@
+package org.springframework.cloud.netflix.feign.ribbon;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.netflix.ribbon.RibbonLoadBalancerContext;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.netflix.client.config.DefaultClientConfigImpl;
+import com.netflix.loadbalancer.ILoadBalancer;
+
+import feign.Client;
+
+/**
+ * @author Dave Syer
+ */
+public class FeignLoadBalancerCacheTests {
+
+    private SpringClientFactory clientFactory = mock(SpringClientFactory.class);
+
+    private FeignLoadBalancerCache cache = new FeignLoadBalancerCache(clientFactory);
+
+    private Client delegate = mock(Client.class);
+
+    @Before
+    public void init() {
+        for (String name : new String[] { "foo", "bar" }) {
+            ILoadBalancer loadBalancer = mock(ILoadBalancer.class);
+            when(clientFactory.getClientConfig(name)).thenReturn(
+                    DefaultClientConfigImpl.getClientConfigWithDefaultValues(name));
+            when(clientFactory.getLoadBalancer(name)).thenReturn(loadBalancer);
+            when(clientFactory.getLoadBalancerContext(name)).thenReturn(
+                    new RibbonLoadBalancerContext(loadBalancer));
+        }
+    }
+
+    @Test
+    public void sameClientForSameName() {
+        RibbonLoadBalancer client = cache.get("foo", delegate);
+        assertSame(client, cache.get("foo", delegate));
+        assertSame(clientFactory.getLoadBalancer("foo"), client.getLoadBalancer());
+        verify(clientFactory, times(1)).getClientConfig("foo");
+    }
+
+    @Test
+    public void closedClientContextOnlyRemovesThatClient() {
+        RibbonLoadBalancer foo = cache.get("foo", delegate);
+        RibbonLoadBalancer bar = cache.get("bar", delegate);
+        cache.closed(context(new MockEnvironment().withProperty("ribbon.client.name",
+                "foo")));
+        assertNotSame(foo, cache.get("foo", delegate));
+        assertSame(bar, cache.get("bar", delegate));
+    }
+
+    @Test
+    public void closedParentContextRemovesAllClients() {
+        RibbonLoadBalancer foo = cache.get("foo", delegate);
+        RibbonLoadBalancer bar = cache.get("bar", delegate);
+        cache.closed(context(new MockEnvironment()));
+        assertNotSame(foo, cache.get("foo", delegate));
+        assertNotSame(bar, cache.get("bar", delegate));
+    }
+
+    private ApplicationContext context(MockEnvironment environment) {
+        ApplicationContext context = mock(ApplicationContext.class);
+        when(context.getEnvironment()).thenReturn(environment);
+        return context;
+    }
+
+}
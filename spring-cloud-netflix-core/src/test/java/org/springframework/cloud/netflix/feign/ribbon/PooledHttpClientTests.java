@@ -0,0 +1,104 @@
+package org.springframework.cloud.netflix.feign.ribbon;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.StreamUtils;
+
+import com.netflix.client.config.CommonClientConfigKey;
+import com.netflix.client.config.DefaultClientConfigImpl;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+
+/**
+ * @author Dave Syer
+ */
+public class PooledHttpClientTests {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private HttpServer server;
+
+    private PooledHttpClient client;
+
+    @Before
+    public void init() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/echo", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = StreamUtils.copyToByteArray(exchange.getRequestBody());
+                exchange.getResponseHeaders().add("X-Method", exchange.getRequestMethod());
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream output = exchange.getResponseBody();
+                output.write(body);
+                output.close();
+            }
+        });
+        server.start();
+        DefaultClientConfigImpl config = DefaultClientConfigImpl
+                .getClientConfigWithDefaultValues("echo");
+        config.setProperty(CommonClientConfigKey.MaxTotalConnections, 5);
+        client = new PooledHttpClient(config);
+    }
+
+    @After
+    public void close() throws IOException {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void postAndReadResponse() throws IOException {
+        Response response = client.execute(request("POST", "hello"), new Request.Options());
+        assertEquals(200, response.status());
+        // The server changes the case of the header names
+        Map<String, Collection<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(response.headers());
+        assertEquals(Collections.singletonList("POST"), headers.get("X-Method"));
+        assertEquals("hello", read(response));
+    }
+
+    @Test
+    public void connectionReturnedToPool() throws IOException {
+        read(client.execute(request("POST", "one"), new Request.Options()));
+        read(client.execute(request("POST", "two"), new Request.Options()));
+        assertEquals(0, client.getLeased());
+        assertEquals(1, client.getAvailable());
+        assertEquals(5, client.getMax());
+    }
+
+    private Request request(String method, String body) {
+        return new RequestTemplate().method(method)
+                .append("http://localhost:" + server.getAddress().getPort() + "/echo")
+                .body(body.getBytes(UTF_8), UTF_8).request();
+    }
+
+    private String read(Response response) throws IOException {
+        InputStream stream = response.body().asInputStream();
+        try {
+            return StreamUtils.copyToString(stream, UTF_8);
+        }
+        finally {
+            stream.close();
+        }
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.http.concurrent.FutureCallback;
+import org.junit.Test;
+
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.IPing;
+import com.netflix.loadbalancer.PingUrl;
+import com.netflix.loadbalancer.Server;
+
+/**
+ * @author Dave Syer
+ */
+public class ConcurrentPingStrategyTests {
+
+	private Server one = server("one", true);
+
+	private Server two = server("two", false);
+
+	private TestPingStrategy strategy = new TestPingStrategy(10, 100, 60000);
+
+	private PingUrl ping = new PingUrl(false, "/health");
+
+	@Test
+	public void pingsAllServers() {
+		this.strategy.answers.put(this.one, false);
+		this.strategy.answers.put(this.two, true);
+		boolean[] results = this.strategy.pingServers(this.ping, new Server[] {
+				this.one, this.two });
+		assertArrayEquals(new boolean[] { false, true }, results);
+		assertEquals(2, this.strategy.pinged.size());
+	}
+
+	@Test
+	public void healthyServerNotCheckedAgainUntilDue() {
+		this.strategy.answers.put(this.one, true);
+		this.strategy.answers.put(this.two, false);
+		Server[] servers = new Server[] { this.one, this.two };
+		this.strategy.pingServers(this.ping, servers);
+		this.strategy.pinged.clear();
+		boolean[] results = this.strategy.pingServers(this.ping, servers);
+		assertArrayEquals(new boolean[] { true, false }, results);
+		// The server that is down is checked on every pass
+		assertEquals(1, this.strategy.pinged.size());
+		assertEquals(this.two, this.strategy.pinged.get(0));
+	}
+
+	@Test
+	public void recoveredServerCheckedAgain() {
+		this.strategy.answers.put(this.two, true);
+		Server[] servers = new Server[] { this.two };
+		assertArrayEquals(new boolean[] { true },
+				this.strategy.pingServers(this.ping, servers));
+		this.strategy.pinged.clear();
+		when(this.two.isAlive()).thenReturn(true);
+		this.strategy.pingServers(this.ping, servers);
+		assertEquals(1, this.strategy.pinged.size());
+	}
+
+	@Test
+	public void slowServerKeepsPreviousState() {
+		// No answer for either server
+		boolean[] results = this.strategy.pingServers(this.ping, new Server[] {
+				this.one, this.two });
+		assertArrayEquals(new boolean[] { true, false }, results);
+	}
+
+	@Test
+	public void concurrencyCapped() {
+		TestPingStrategy strategy = new TestPingStrategy(1, 100, 60000);
+		// The first server never answers, so the second cannot be checked
+		strategy.answers.put(this.two, true);
+		boolean[] results = strategy.pingServers(this.ping, new Server[] { this.one,
+				this.two });
+		assertArrayEquals(new boolean[] { true, false }, results);
+		assertEquals(1, strategy.pinged.size());
+	}
+
+	@Test
+	public void otherPingCalledDirectly() {
+		IPing other = mock(IPing.class);
+		when(other.isAlive(this.one)).thenReturn(true);
+		when(other.isAlive(this.two)).thenThrow(new IllegalStateException("Planned"));
+		boolean[] results = this.strategy.pingServers(other, new Server[] { this.one,
+				this.two });
+		assertArrayEquals(new boolean[] { true, false }, results);
+		assertEquals(0, this.strategy.pinged.size());
+	}
+
+	@Test
+	public void wrappedPingChecksLoadBalancerServersOncePerPass() {
+		BaseLoadBalancer balancer = mock(BaseLoadBalancer.class);
+		when(balancer.getServerList(false)).thenReturn(Arrays.asList(this.one, this.two));
+		this.strategy.answers.put(this.one, false);
+		this.strategy.answers.put(this.two, true);
+		IPing wrapped = this.strategy.wrap(this.ping, balancer);
+		// The load balancer asks about its servers one after the other
+		assertFalse(wrapped.isAlive(this.one));
+		assertEquals(2, this.strategy.pinged.size());
+		assertTrue(wrapped.isAlive(this.two));
+		assertEquals(2, this.strategy.pinged.size());
+		// The next pass checks them again
+		wrapped.isAlive(this.one);
+		assertEquals(4, this.strategy.pinged.size());
+	}
+
+	@Test
+	public void otherPingNotWrapped() {
+		IPing other = mock(IPing.class);
+		assertSame(other, this.strategy.wrap(other, mock(BaseLoadBalancer.class)));
+	}
+
+	private static Server server(String host, boolean alive) {
+		Server server = mock(Server.class);
+		when(server.getId()).thenReturn(host + ":8080");
+		when(server.isAlive()).thenReturn(alive);
+		return server;
+	}
+
+	private static class TestPingStrategy extends ConcurrentPingStrategy {
+
+		private Map<Server, Boolean> answers = new HashMap<>();
+
+		private List<Server> pinged = new ArrayList<>();
+
+		public TestPingStrategy(int maxConcurrent, long timeout, long healthyInterval) {
+			super(maxConcurrent, timeout, healthyInterval);
+		}
+
+		@Override
+		protected void ping(PingUrl ping, Server server, FutureCallback<Boolean> callback) {
+			this.pinged.add(server);
+			Boolean answer = this.answers.get(server);
+			if (answer != null) {
+				callback.completed(answer);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.LoadBalancerStats;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerStats;
+
+/**
+ * @author Dave Syer
+ */
+public class ConsistentHashRuleTests {
+
+	private BaseLoadBalancer loadBalancer = mock(BaseLoadBalancer.class);
+
+	private LoadBalancerStats loadBalancerStats = mock(LoadBalancerStats.class);
+
+	private ServerStats idle = mock(ServerStats.class);
+
+	private ServerStats busy = mock(ServerStats.class);
+
+	private List<Server> servers = new ArrayList<Server>();
+
+	private ConsistentHashRule rule = new ConsistentHashRule();
+
+	@Before
+	public void init() {
+		for (int i = 0; i < 10; i++) {
+			Server server = new Server("host" + i, 8080);
+			server.setAlive(true);
+			this.servers.add(server);
+		}
+		when(this.loadBalancer.getServerList(true)).thenReturn(this.servers);
+		when(this.loadBalancer.getLoadBalancerStats()).thenReturn(this.loadBalancerStats);
+		when(this.loadBalancerStats.getSingleServerStat(any(Server.class))).thenReturn(
+				this.idle);
+		when(this.busy.getActiveRequestsCount(anyLong())).thenReturn(100);
+		this.rule.setLoadBalancer(this.loadBalancer);
+		this.rule.refresh();
+	}
+
+	@Test
+	public void sameKeySameServer() {
+		Server server = choose("foo");
+		assertNotNull(server);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(server, choose("foo"));
+		}
+	}
+
+	@Test
+	public void removedServerOnlyMovesItsKeys() {
+		Server server = choose("foo");
+		Server other = this.servers.get(this.servers.indexOf(server) == 0 ? 1 : 0);
+		String key = null;
+		for (int i = 0; key == null; i++) {
+			if (choose("key" + i).equals(other)) {
+				key = "key" + i;
+			}
+		}
+		this.servers.remove(other);
+		this.rule.refresh();
+		assertEquals(server, choose("foo"));
+		assertNotEquals(other, choose(key));
+	}
+
+	@Test
+	public void overloadedServerSpillsToNext() {
+		Server server = choose("foo");
+		when(this.loadBalancerStats.getSingleServerStat(server)).thenReturn(this.busy);
+		assertNotEquals(server, choose("foo"));
+	}
+
+	@Test
+	public void allOverloadedChecksEachServerOnce() {
+		Server server = choose("foo");
+		when(this.loadBalancerStats.getSingleServerStat(any(Server.class))).thenReturn(
+				this.busy);
+		// The first server clockwise is used when they are all busy
+		assertEquals(server, choose("foo"));
+		verify(this.busy, times(this.servers.size())).isCircuitBreakerTripped(anyLong());
+	}
+
+	@Test
+	public void noServers() {
+		this.servers.clear();
+		this.rule.refresh();
+		assertNull(choose("foo"));
+	}
+
+	@Test
+	public void plainKeysAreNotHashed() {
+		Server server = choose("default");
+		when(this.loadBalancerStats.getSingleServerStat(server)).thenReturn(this.busy);
+		for (int i = 0; i < 10; i++) {
+			assertNotEquals(server, this.rule.choose("default"));
+		}
+	}
+
+	@Test
+	public void resolveKeys() {
+		Map<String, List<String>> headers = Collections.singletonMap("X-User",
+				Collections.singletonList("bar"));
+		Map<String, List<String>> params = Collections.singletonMap("user",
+				Collections.singletonList("spam"));
+		assertEquals("bar",
+				ConsistentHashKey.parse("header:x-user").resolve("/a/b", headers, params));
+		assertEquals("spam",
+				ConsistentHashKey.parse("query:user").resolve("/a/b", headers, params));
+		assertEquals("b",
+				ConsistentHashKey.parse("path:1").resolve("/a/b", headers, params));
+		assertNull(ConsistentHashKey.parse("path:2").resolve("/a/b", headers, params));
+		assertNull(ConsistentHashKey.parse("cookie:foo"));
+	}
+
+	private Server choose(String key) {
+		return this.rule.choose(new ConsistentHashKey.Value(key));
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.LoadBalancerStats;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerStats;
+
+/**
+ * @author Dave Syer
+ */
+public class PeakEwmaRuleTests {
+
+	private BaseLoadBalancer loadBalancer = mock(BaseLoadBalancer.class);
+
+	private LoadBalancerStats loadBalancerStats = mock(LoadBalancerStats.class);
+
+	private Server slow = new Server("slow", 8080);
+
+	private Server fast = new Server("fast", 8080);
+
+	private ServerStats slowStats = mock(ServerStats.class);
+
+	private ServerStats fastStats = mock(ServerStats.class);
+
+	private PeakEwmaRule rule = new PeakEwmaRule();
+
+	@Before
+	public void init() {
+		when(loadBalancer.getLoadBalancerStats()).thenReturn(loadBalancerStats);
+		when(loadBalancer.getServerList(true)).thenReturn(Arrays.asList(slow, fast));
+		when(loadBalancerStats.getSingleServerStat(slow)).thenReturn(slowStats);
+		when(loadBalancerStats.getSingleServerStat(fast)).thenReturn(fastStats);
+		rule.setLoadBalancer(loadBalancer);
+	}
+
+	@Test
+	public void choosesLowerLatency() {
+		rule.noteRequestCompletion(slowStats, 500, null);
+		rule.noteRequestCompletion(fastStats, 5, null);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(fast, rule.choose("default"));
+		}
+	}
+
+	@Test
+	public void activeRequestsMultiplyLatency() {
+		rule.noteRequestCompletion(slowStats, 50, null);
+		rule.noteRequestCompletion(fastStats, 10, null);
+		when(fastStats.getActiveRequestsCount(anyLong())).thenReturn(9);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(slow, rule.choose("default"));
+		}
+	}
+
+	@Test
+	public void peakIsTakenImmediately() {
+		long now = System.currentTimeMillis();
+		rule.noteRequestCompletion(fastStats, 10, null);
+		rule.noteRequestCompletion(fastStats, 1000, null);
+		assertTrue(rule.score(fastStats, now) > 900);
+	}
+
+	@Test
+	public void loadBalancerContextNotifiesRule() {
+		when(loadBalancer.getRule()).thenReturn(rule);
+		RibbonLoadBalancerContext.notifyRule(loadBalancer, slowStats, 500, null);
+		rule.noteRequestCompletion(fastStats, 5, null);
+		assertEquals(fast, rule.choose("default"));
+	}
+
+}
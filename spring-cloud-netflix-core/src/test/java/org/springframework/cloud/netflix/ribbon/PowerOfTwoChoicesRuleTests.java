@@ -0,0 +1,98 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.LoadBalancerStats;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerStats;
+
+/**
+ * @author Dave Syer
+ */
+public class PowerOfTwoChoicesRuleTests {
+
+	private BaseLoadBalancer loadBalancer = mock(BaseLoadBalancer.class);
+
+	private LoadBalancerStats loadBalancerStats = mock(LoadBalancerStats.class);
+
+	private Server busy = new Server("busy", 8080);
+
+	private Server idle = new Server("idle", 8080);
+
+	private ServerStats busyStats = mock(ServerStats.class);
+
+	private ServerStats idleStats = mock(ServerStats.class);
+
+	private PowerOfTwoChoicesRule rule = new PowerOfTwoChoicesRule();
+
+	@Before
+	public void init() {
+		when(loadBalancer.getLoadBalancerStats()).thenReturn(loadBalancerStats);
+		when(loadBalancerStats.getSingleServerStat(busy)).thenReturn(busyStats);
+		when(loadBalancerStats.getSingleServerStat(idle)).thenReturn(idleStats);
+		rule.setLoadBalancer(loadBalancer);
+	}
+
+	@Test
+	public void noServers() {
+		when(loadBalancer.getServerList(true)).thenReturn(Collections.<Server> emptyList());
+		assertNull(rule.choose("default"));
+	}
+
+	@Test
+	public void choosesLeastActive() {
+		when(loadBalancer.getServerList(true)).thenReturn(Arrays.asList(busy, idle));
+		when(busyStats.getActiveRequestsCount(anyLong())).thenReturn(10);
+		when(idleStats.getActiveRequestsCount(anyLong())).thenReturn(1);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(idle, rule.choose("default"));
+		}
+	}
+
+	@Test
+	public void choosesFasterWhenEquallyActive() {
+		when(loadBalancer.getServerList(true)).thenReturn(Arrays.asList(busy, idle));
+		when(busyStats.getResponseTimeAvg()).thenReturn(100.0);
+		when(idleStats.getResponseTimeAvg()).thenReturn(10.0);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(idle, rule.choose("default"));
+		}
+	}
+
+	@Test
+	public void avoidsTrippedCircuit() {
+		when(loadBalancer.getServerList(true)).thenReturn(Arrays.asList(busy, idle));
+		when(busyStats.getActiveRequestsCount(anyLong())).thenReturn(10);
+		when(idleStats.isCircuitBreakerTripped(anyLong())).thenReturn(true);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(busy, rule.choose("default"));
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.netflix.client.DefaultLoadBalancerRetryHandler;
+import com.netflix.client.RetryHandler;
+import com.netflix.client.http.HttpRequest;
+
+/**
+ * @author Dave Syer
+ */
+public class RetryBudgetTests {
+
+	@Test
+	public void startsFullAndEmpties() {
+		RetryBudget budget = new RetryBudget(true, 0.1, 2);
+		assertTrue(budget.tryWithdraw());
+		assertTrue(budget.tryWithdraw());
+		assertFalse(budget.tryWithdraw());
+		assertEquals(2, budget.getRetries());
+		assertEquals(1, budget.getRefused());
+	}
+
+	@Test
+	public void successesRefill() {
+		RetryBudget budget = new RetryBudget(true, 0.5, 1);
+		assertTrue(budget.tryWithdraw());
+		budget.deposit();
+		assertFalse(budget.tryWithdraw());
+		budget.deposit();
+		assertTrue(budget.tryWithdraw());
+	}
+
+	@Test
+	public void depositsCapped() {
+		RetryBudget budget = new RetryBudget(true, 0.5, 1);
+		for (int i = 0; i < 10; i++) {
+			budget.deposit();
+		}
+		assertEquals(1.0, budget.getBalance(), 0.001);
+	}
+
+	@Test
+	public void disabledNeverRefuses() {
+		RetryBudget budget = new RetryBudget(false, 0.1, 1);
+		for (int i = 0; i < 10; i++) {
+			assertTrue(budget.tryWithdraw());
+		}
+		assertEquals(0, budget.getRefused());
+	}
+
+	@Test
+	public void handlerSpendsBudget() {
+		BudgetedRetryHandler handler = new BudgetedRetryHandler(
+				new DefaultLoadBalancerRetryHandler(1, 1, true),
+				new RetryBudget(true, 0.1, 1));
+		RuntimeException e = new RuntimeException();
+		assertTrue(handler.isRetriableException(e, false));
+		assertFalse(handler.isRetriableException(e, false));
+	}
+
+	@Test
+	public void oneBudgetPerClient() {
+		assertSame(RetryBudget.forClient("budgeted"), RetryBudget.forClient("budgeted"));
+	}
+
+	@Test
+	public void restClientSpendsBudget() {
+		RibbonClientConfiguration.BudgetedRestClient client = new RibbonClientConfiguration.BudgetedRestClient(
+				RibbonClientConfiguration.createClientConfig("budgeted"),
+				new RetryBudget(true, 0.1, 1));
+		HttpRequest request = HttpRequest.newBuilder().uri("http://budgeted/")
+				.setRetriable(true).build();
+		RetryHandler handler = client.getRequestSpecificRetryHandler(request, null);
+		RuntimeException e = new RuntimeException();
+		assertTrue(handler.isRetriableException(e, false));
+		assertFalse(handler.isRetriableException(e, false));
+	}
+
+}
@@ -0,0 +1,103 @@
+package org.springframework.cloud.netflix.ribbon;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.AsyncClientHttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.LoadBalancerStats;
+import com.netflix.loadbalancer.Server;
+
+/**
+ * @author Dave Syer
+ */
+public class RibbonAsyncClientHttpRequestFactoryTests {
+
+    @Mock
+    SpringClientFactory clientFactory;
+
+    @Mock
+    BaseLoadBalancer loadBalancer;
+
+    @Mock
+    AsyncClientHttpRequestFactory delegate;
+
+    @Mock
+    AsyncClientHttpRequest request;
+
+    private HttpHeaders headers = new HttpHeaders();
+
+    private ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    private SettableListenableFuture<ClientHttpResponse> future = new SettableListenableFuture<>();
+
+    @Before
+    public void init() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        when(clientFactory.getLoadBalancerContext(anyString())).thenReturn(new RibbonLoadBalancerContext(loadBalancer));
+        when(clientFactory.getLoadBalancer("myservice")).thenReturn(loadBalancer);
+        when(loadBalancer.chooseServer(anyString())).thenReturn(new Server("myhost", 8080));
+        when(loadBalancer.getLoadBalancerStats()).thenReturn(new LoadBalancerStats("myservice"));
+        when(request.getHeaders()).thenReturn(headers);
+        when(request.getBody()).thenReturn(body);
+        when(request.executeAsync()).thenReturn(future);
+    }
+
+    @Test
+    public void sendsRequestToChosenServer() throws Exception {
+        when(delegate.createAsyncRequest(eq(new URI("http://myhost:8080/path")), any(HttpMethod.class))).thenReturn(request);
+        RibbonAsyncClientHttpRequestFactory factory = new RibbonAsyncClientHttpRequestFactory(
+                new RibbonLoadBalancerClient(clientFactory), delegate);
+
+        AsyncClientHttpRequest ribbonRequest = factory.createAsyncRequest(new URI("http://myservice/path"), HttpMethod.POST);
+        ribbonRequest.getHeaders().add("foo", "bar");
+        StreamUtils.copy("hello".getBytes(), ribbonRequest.getBody());
+        ListenableFuture<ClientHttpResponse> result = ribbonRequest.executeAsync();
+
+        ClientHttpResponse response = mock(ClientHttpResponse.class);
+        future.set(response);
+        assertSame(response, result.get());
+        assertEquals("bar", headers.getFirst("foo"));
+        assertArrayEquals("hello".getBytes(), body.toByteArray());
+    }
+
+    @Test
+    public void usesAnyLoadBalancerClient() throws Exception {
+        when(delegate.createAsyncRequest(eq(new URI("http://otherhost:9090/path")), any(HttpMethod.class))).thenReturn(request);
+        LoadBalancerClient client = mock(LoadBalancerClient.class);
+        ServiceInstance instance = mock(ServiceInstance.class);
+        when(client.choose("myservice")).thenReturn(instance);
+        when(client.reconstructURI(instance, new URI("http://myservice/path"))).thenReturn(new URI("http://otherhost:9090/path"));
+        RibbonAsyncClientHttpRequestFactory factory = new RibbonAsyncClientHttpRequestFactory(client, delegate);
+
+        ListenableFuture<ClientHttpResponse> result = factory.createAsyncRequest(new URI("http://myservice/path"), HttpMethod.GET).executeAsync();
+
+        ClientHttpResponse response = mock(ClientHttpResponse.class);
+        future.set(response);
+        assertSame(response, result.get());
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.InstanceRegisteredEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+/**
+ * @author Dave Syer
+ */
+public class RibbonEagerLoaderTests {
+
+	private SpringClientFactory factory = mock(SpringClientFactory.class);
+
+	private RibbonEagerLoadProperties properties = new RibbonEagerLoadProperties();
+
+	private ApplicationContext context = mock(ApplicationContext.class);
+
+	private RibbonEagerLoader loader = new RibbonEagerLoader(this.factory,
+			this.properties);
+
+	@Before
+	public void init() {
+		when(this.factory.getClientNames()).thenReturn(Collections.<String> emptySet());
+		this.loader.setApplicationContext(this.context);
+	}
+
+	@Test
+	public void loadsOnContextRefreshed() {
+		this.properties.setClients(Arrays.asList("foo", "bar"));
+		this.loader.onApplicationEvent(new ContextRefreshedEvent(this.context));
+		verify(this.factory).preload(Collections.singleton("foo"));
+		verify(this.factory).preload(Collections.singleton("bar"));
+	}
+
+	@Test
+	public void ignoresChildContextRefreshed() {
+		this.properties.setClients(Arrays.asList("foo"));
+		// A Ribbon client context is a child of the application context
+		this.loader.onApplicationEvent(new ContextRefreshedEvent(mock(ApplicationContext.class)));
+		verify(this.factory, never()).preload(anyCollectionOf(String.class));
+	}
+
+	@Test
+	public void existingClientsNotLoadedAgain() {
+		this.properties.setClients(Arrays.asList("foo", "bar"));
+		when(this.factory.getClientNames()).thenReturn(Collections.singleton("foo"));
+		this.loader.onApplicationEvent(new ContextRefreshedEvent(this.context));
+		verify(this.factory, never()).preload(Collections.singleton("foo"));
+		verify(this.factory).preload(Collections.singleton("bar"));
+	}
+
+	@Test
+	public void reloadsFromDiscoveryWhenInstanceRegistered() {
+		DiscoveryClient discovery = mock(DiscoveryClient.class);
+		// The registry has not been fetched when the context is refreshed
+		when(discovery.getServices()).thenReturn(Collections.<String> emptyList(),
+				Arrays.asList("foo"));
+		this.loader.setDiscoveryClient(discovery);
+		this.loader.onApplicationEvent(new ContextRefreshedEvent(this.context));
+		verify(this.factory, never()).preload(anyCollectionOf(String.class));
+		this.loader.onApplicationEvent(new InstanceRegisteredEvent<>(this, "config"));
+		verify(this.factory).preload(Collections.singleton("foo"));
+	}
+
+	@Test
+	public void instanceRegisteredIgnoredWithExplicitClients() {
+		DiscoveryClient discovery = mock(DiscoveryClient.class);
+		when(discovery.getServices()).thenReturn(Arrays.asList("foo"));
+		this.loader.setDiscoveryClient(discovery);
+		this.properties.setClients(Arrays.asList("bar"));
+		this.loader.onApplicationEvent(new InstanceRegisteredEvent<>(this, "config"));
+		verify(this.factory, never()).preload(anyCollectionOf(String.class));
+	}
+
+	@Test
+	public void failedClientDoesNotStopOthers() {
+		this.properties.setClients(Arrays.asList("foo", "bar", "spam"));
+		this.properties.setThreads(1);
+		doThrow(new IllegalStateException("Planned")).when(this.factory).preload(
+				Collections.singleton("foo"));
+		this.loader.onApplicationEvent(new ContextRefreshedEvent(this.context));
+		verify(this.factory).preload(Collections.singleton("bar"));
+		verify(this.factory).preload(Collections.singleton("spam"));
+	}
+
+}
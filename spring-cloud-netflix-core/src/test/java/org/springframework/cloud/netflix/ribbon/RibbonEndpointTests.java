@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.Server;
+
+/**
+ * @author Dave Syer
+ */
+public class RibbonEndpointTests {
+
+	private SpringClientFactory clientFactory = mock(SpringClientFactory.class);
+
+	private RibbonEndpoint endpoint = new RibbonEndpoint(this.clientFactory);
+
+	@Test
+	public void noClients() {
+		when(this.clientFactory.getClientNames()).thenReturn(
+				Collections.<String> emptySet());
+		assertTrue(this.endpoint.invoke().isEmpty());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void serverStats() {
+		BaseLoadBalancer loadBalancer = new BaseLoadBalancer();
+		Server server = new Server("foo", 8080);
+		server.setZone("zone1");
+		loadBalancer.addServers(Arrays.asList(server));
+		loadBalancer.getLoadBalancerStats().getSingleServerStat(server)
+				.incrementActiveRequestsCount();
+		when(this.clientFactory.getClientNames()).thenReturn(
+				new LinkedHashSet<String>(Arrays.asList("stores")));
+		when(this.clientFactory.getLoadBalancer("stores")).thenReturn(loadBalancer);
+		Map<String, Object> result = this.endpoint.invoke();
+		Map<String, Object> client = (Map<String, Object>) result.get("stores");
+		List<Map<String, Object>> servers = (List<Map<String, Object>>) client
+				.get("servers");
+		assertEquals(1, servers.size());
+		Map<String, Object> stats = servers.get(0);
+		assertEquals("foo:8080", stats.get("id"));
+		assertEquals("zone1", stats.get("zone"));
+		assertEquals(1, stats.get("activeRequests"));
+		assertFalse((Boolean) stats.get("circuitBreakerTripped"));
+		assertTrue(stats.containsKey("responseTime"));
+	}
+
+}
@@ -5,6 +5,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyDouble;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -19,12 +20,16 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerRequest;
 import org.springframework.cloud.netflix.ribbon.RibbonLoadBalancerClient.RibbonServer;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
 
 import com.netflix.loadbalancer.BaseLoadBalancer;
 import com.netflix.loadbalancer.LoadBalancerStats;
 import com.netflix.loadbalancer.Server;
 import com.netflix.loadbalancer.ServerStats;
 
+import rx.Observable;
+
 /**
  * @author Spencer Gibb
  */
@@ -107,6 +112,65 @@ public class RibbonLoadBalancerClientTests {
         verifyServerStats();
     }
 
+    @Test
+    public void testExecuteAsync() throws Exception {
+        final RibbonServer server = getRibbonServer();
+        RibbonLoadBalancerClient client = getRibbonLoadBalancerClient(server);
+        final SettableListenableFuture<String> future = new SettableListenableFuture<>();
+
+        ListenableFuture<String> actual = client.executeAsync(server.getServiceId(), new LoadBalancerRequest<ListenableFuture<String>>() {
+            @Override
+            public ListenableFuture<String> apply(ServiceInstance instance) throws Exception {
+                assertServiceInstance(server, instance);
+                return future;
+            }
+        });
+
+        verify(serverStats).incrementActiveRequestsCount();
+        verify(serverStats, never()).decrementActiveRequestsCount();
+
+        future.set("myval");
+        assertEquals("retVal was wrong", "myval", actual.get());
+        verifyServerStats();
+    }
+
+    @Test
+    public void testExecuteObservable() {
+        final RibbonServer server = getRibbonServer();
+        RibbonObservableLoadBalancerClient client = new RibbonObservableLoadBalancerClient(getRibbonLoadBalancerClient(server));
+
+        Observable<String> observable = client.execute(server.getServiceId(), new LoadBalancerRequest<Observable<String>>() {
+            @Override
+            public Observable<String> apply(ServiceInstance instance) throws Exception {
+                assertServiceInstance(server, instance);
+                return Observable.just("myval");
+            }
+        });
+
+        verify(serverStats, never()).incrementActiveRequestsCount();
+        assertEquals("retVal was wrong", "myval", observable.toBlocking().single());
+        verifyServerStats();
+    }
+
+    @Test
+    public void testExecuteObservableUnsubscribed() {
+        final RibbonServer server = getRibbonServer();
+        RibbonObservableLoadBalancerClient client = new RibbonObservableLoadBalancerClient(getRibbonLoadBalancerClient(server));
+
+        Observable<String> observable = client.execute(server.getServiceId(), new LoadBalancerRequest<Observable<String>>() {
+            @Override
+            public Observable<String> apply(ServiceInstance instance) throws Exception {
+                return Observable.never();
+            }
+        });
+
+        observable.subscribe().unsubscribe();
+        verify(serverStats).incrementActiveRequestsCount();
+        verify(serverStats).decrementActiveRequestsCount();
+        verify(serverStats, never()).incrementNumRequests();
+        verify(serverStats, never()).noteResponseTime(anyDouble());
+    }
+
     protected RibbonServer getRibbonServer() {
         return new RibbonServer("testService", new Server("myhost", 9080));
     }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.springframework.cloud.netflix.ribbon.SlowStart.Curve;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.LeaseInfo;
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.LoadBalancerStats;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerStats;
+import com.netflix.niws.loadbalancer.DiscoveryEnabledServer;
+
+/**
+ * @author Dave Syer
+ */
+public class SlowStartTests {
+
+	@Test
+	public void linear() {
+		SlowStart slowStart = new SlowStart(1000, Curve.LINEAR, 0.1);
+		assertEquals(0.1, slowStart.getWeight(0), 0.001);
+		assertEquals(0.55, slowStart.getWeight(500), 0.001);
+		assertEquals(1.0, slowStart.getWeight(1000), 0.001);
+		assertEquals(1.0, slowStart.getWeight(5000), 0.001);
+	}
+
+	@Test
+	public void exponential() {
+		SlowStart slowStart = new SlowStart(1000, Curve.EXPONENTIAL, 0.01);
+		assertEquals(0.01, slowStart.getWeight(0), 0.001);
+		assertEquals(0.1, slowStart.getWeight(500), 0.001);
+		assertEquals(1.0, slowStart.getWeight(1000), 0.001);
+	}
+
+	@Test
+	public void plainServerHasFullWeight() {
+		SlowStart slowStart = new SlowStart(1000, Curve.LINEAR, 0.1);
+		assertEquals(1.0,
+				slowStart.getWeight(new Server("foo", 8080), System.currentTimeMillis()),
+				0.001);
+	}
+
+	@Test
+	public void ruleAvoidsNewServer() {
+		long now = System.currentTimeMillis();
+		Server fresh = server("fresh", now);
+		Server warm = server("warm", now - 60000);
+		BaseLoadBalancer loadBalancer = mock(BaseLoadBalancer.class);
+		LoadBalancerStats stats = mock(LoadBalancerStats.class);
+		ServerStats freshStats = mock(ServerStats.class);
+		ServerStats warmStats = mock(ServerStats.class);
+		when(loadBalancer.getServerList(true)).thenReturn(Arrays.asList(fresh, warm));
+		when(loadBalancer.getLoadBalancerStats()).thenReturn(stats);
+		when(stats.getSingleServerStat(fresh)).thenReturn(freshStats);
+		when(stats.getSingleServerStat(warm)).thenReturn(warmStats);
+		when(freshStats.getActiveRequestsCount(anyLong())).thenReturn(1);
+		when(warmStats.getActiveRequestsCount(anyLong())).thenReturn(3);
+		PowerOfTwoChoicesRule rule = new PowerOfTwoChoicesRule(loadBalancer);
+		rule.setSlowStart(new SlowStart(30000, Curve.LINEAR, 0.1));
+		for (int i = 0; i < 10; i++) {
+			assertEquals(warm, rule.choose("default"));
+		}
+	}
+
+	@Test
+	public void peakEwmaRuleAvoidsIdleNewServer() {
+		long now = System.currentTimeMillis();
+		Server fresh = server("fresh", now);
+		Server warm = server("warm", now - 60000);
+		BaseLoadBalancer loadBalancer = mock(BaseLoadBalancer.class);
+		LoadBalancerStats stats = mock(LoadBalancerStats.class);
+		ServerStats freshStats = mock(ServerStats.class);
+		ServerStats warmStats = mock(ServerStats.class);
+		when(loadBalancer.getServerList(true)).thenReturn(Arrays.asList(fresh, warm));
+		when(loadBalancer.getLoadBalancerStats()).thenReturn(stats);
+		when(stats.getSingleServerStat(fresh)).thenReturn(freshStats);
+		when(stats.getSingleServerStat(warm)).thenReturn(warmStats);
+		PeakEwmaRule rule = new PeakEwmaRule(loadBalancer);
+		rule.setSlowStart(new SlowStart(30000, Curve.LINEAR, 0.1));
+		// The new server has no latency yet, so its score is 0
+		rule.noteRequestCompletion(warmStats, 5, null);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(warm, rule.choose("default"));
+		}
+	}
+
+	private Server server(String host, long up) {
+		InstanceInfo instance = mock(InstanceInfo.class);
+		LeaseInfo lease = mock(LeaseInfo.class);
+		when(lease.getServiceUpTimestamp()).thenReturn(up);
+		when(instance.getLeaseInfo()).thenReturn(lease);
+		DiscoveryEnabledServer server = mock(DiscoveryEnabledServer.class);
+		when(server.getInstanceInfo()).thenReturn(instance);
+		when(server.getHost()).thenReturn(host);
+		return server;
+	}
+
+}
@@ -16,13 +16,33 @@
 package org.springframework.cloud.netflix.ribbon;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 import org.springframework.boot.test.EnvironmentTestUtils;
 import org.springframework.cloud.netflix.archaius.ArchaiusAutoConfiguration;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 
+import com.google.common.base.Throwables;
+import com.netflix.client.ClientRequest;
 import com.netflix.client.DefaultLoadBalancerRetryHandler;
+import com.netflix.client.IClient;
+import com.netflix.client.IClientConfigAware;
+import com.netflix.client.IResponse;
+import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.ILoadBalancer;
 
 /**
  * @author Dave Syer
@@ -44,4 +64,120 @@ public class SpringClientFactoryTests {
 		factory.destroy();
 	}
 
+	@Test
+	public void testPreload() {
+		AnnotationConfigApplicationContext parent = new AnnotationConfigApplicationContext(ArchaiusAutoConfiguration.class);
+		factory.setApplicationContext(parent);
+		factory.preload(Arrays.asList("foo", "bar"));
+		assertEquals(2, factory.getContextNames().size());
+		assertTrue(factory.getContextNames().contains("bar"));
+		parent.close();
+		factory.destroy();
+	}
+
+	@Test
+	public void testConcurrentLookupsShareContext() throws Exception {
+		AnnotationConfigApplicationContext parent = new AnnotationConfigApplicationContext(ArchaiusAutoConfiguration.class);
+		factory.setApplicationContext(parent);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<ILoadBalancer>> results = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			results.add(executor.submit(new Callable<ILoadBalancer>() {
+				@Override
+				public ILoadBalancer call() throws Exception {
+					return factory.getLoadBalancer("foo");
+				}
+			}));
+		}
+		ILoadBalancer first = results.get(0).get();
+		for (Future<ILoadBalancer> result : results) {
+			assertSame(first, result.get());
+		}
+		executor.shutdown();
+		parent.close();
+		factory.destroy();
+	}
+
+	@Test
+	public void testLightweightClient() {
+		AnnotationConfigApplicationContext parent = new AnnotationConfigApplicationContext(ArchaiusAutoConfiguration.class);
+		EnvironmentTestUtils.addEnvironment(parent, "baz.ribbon.MaxAutoRetries:3");
+		factory.setApplicationContext(parent);
+		factory.setLightweight(true);
+		DefaultLoadBalancerRetryHandler retryHandler = (DefaultLoadBalancerRetryHandler) factory
+				.getLoadBalancerContext("baz").getRetryHandler();
+		assertEquals(3, retryHandler.getMaxRetriesOnSameServer());
+		assertSame(factory.getLoadBalancer("baz"), factory.getLoadBalancerContext("baz")
+				.getLoadBalancer());
+		assertTrue(factory.getContextNames().isEmpty());
+		assertTrue(factory.getClientNames().contains("baz"));
+		parent.close();
+		factory.destroy();
+	}
+
+	@Test
+	public void testLightweightClientInstantiatesOtherTypesWithoutContext() {
+		AnnotationConfigApplicationContext parent = new AnnotationConfigApplicationContext(ArchaiusAutoConfiguration.class);
+		factory.setApplicationContext(parent);
+		factory.setLightweight(true);
+		ConfiguredClient client = factory.getClient("baz", ConfiguredClient.class);
+		assertEquals("baz", client.config.getClientName());
+		assertTrue(factory.getContextNames().isEmpty());
+		parent.close();
+		factory.destroy();
+	}
+
+	@Test
+	public void testReentrantLookupFailsInsteadOfDeadlocking() {
+		AnnotationConfigApplicationContext parent = new AnnotationConfigApplicationContext(ArchaiusAutoConfiguration.class);
+		factory.setApplicationContext(parent);
+		factory.setConfigurations(Arrays.asList(new RibbonClientSpecification("loop",
+				new Class<?>[] { ReentrantConfiguration.class })));
+		ReentrantConfiguration.factory = factory;
+		try {
+			factory.getLoadBalancer("loop");
+			fail("Expected IllegalStateException");
+		}
+		catch (RuntimeException e) {
+			// Wrapped by the bean factory of the child context
+			Throwable cause = Throwables.getRootCause(e);
+			assertTrue("Wrong cause: " + cause, cause instanceof IllegalStateException);
+			assertTrue(cause.getMessage(), cause.getMessage().contains("loop"));
+		}
+		finally {
+			ReentrantConfiguration.factory = null;
+			parent.close();
+			factory.destroy();
+		}
+	}
+
+	@Configuration
+	protected static class ReentrantConfiguration {
+
+		static SpringClientFactory factory;
+
+		@Bean
+		public Object reentrant() {
+			return factory.getLoadBalancer("loop");
+		}
+
+	}
+
+	public static class ConfiguredClient implements IClient<ClientRequest, IResponse>,
+			IClientConfigAware {
+
+		private IClientConfig config;
+
+		@Override
+		public void initWithNiwsConfig(IClientConfig config) {
+			this.config = config;
+		}
+
+		@Override
+		public IResponse execute(ClientRequest request, IClientConfig requestConfig) {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
 }
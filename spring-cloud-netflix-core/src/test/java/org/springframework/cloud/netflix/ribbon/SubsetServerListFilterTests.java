@@ -0,0 +1,89 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.springframework.cloud.netflix.ribbon.eureka.ZonePreferenceServerListFilter;
+
+import com.netflix.loadbalancer.Server;
+
+/**
+ * @author Dave Syer
+ */
+public class SubsetServerListFilterTests {
+
+	private List<Server> servers = createServers(100);
+
+	@Test
+	public void smallListUnchanged() {
+		SubsetServerListFilter filter = filter("client", 10);
+		List<Server> servers = createServers(5);
+		assertEquals(servers, filter.getFilteredListOfServers(servers));
+	}
+
+	@Test
+	public void subsetIsStable() {
+		List<Server> first = filter("client", 10).getFilteredListOfServers(this.servers);
+		assertEquals(10, first.size());
+		assertEquals(first, filter("client", 10).getFilteredListOfServers(this.servers));
+	}
+
+	@Test
+	public void clientsGetDifferentSubsets() {
+		Set<Server> used = new HashSet<Server>();
+		for (int i = 0; i < 20; i++) {
+			used.addAll(filter("client" + i, 10).getFilteredListOfServers(this.servers));
+		}
+		// 20 random subsets of 10 out of 100 should cover most of the servers
+		assertTrue(used.size() > 50);
+	}
+
+	@Test
+	public void removingServerOnlyReplacesIt() {
+		SubsetServerListFilter filter = filter("client", 10);
+		List<Server> before = filter.getFilteredListOfServers(this.servers);
+		List<Server> fewer = new ArrayList<Server>(this.servers);
+		Server removed = before.get(0);
+		fewer.remove(removed);
+		List<Server> after = filter.getFilteredListOfServers(fewer);
+		assertEquals(10, after.size());
+		assertFalse(after.contains(removed));
+		assertTrue(after.containsAll(before.subList(1, before.size())));
+	}
+
+	private SubsetServerListFilter filter(String localId, int size) {
+		return new SubsetServerListFilter(new ZonePreferenceServerListFilter(), localId,
+				size);
+	}
+
+	private static List<Server> createServers(int count) {
+		List<Server> servers = new ArrayList<Server>();
+		for (int i = 0; i < count; i++) {
+			servers.add(new Server("host" + i, 8080));
+		}
+		return servers;
+	}
+
+}
@@ -2,6 +2,8 @@ package org.springframework.cloud.netflix.ribbon.eureka;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -77,6 +79,29 @@ public class DomainExtractingServerListTests {
         assertEquals("hostPort was wrong", IP_ADDR+":"+PORT, des.getHostPort());
     }
 
+    @Test
+    public void testServersCachedUntilInstanceChanges() {
+        DiscoveryEnabledServer server = mock(DiscoveryEnabledServer.class);
+        @SuppressWarnings("unchecked")
+        ServerList<Server> originalServerList = mock(ServerList.class);
+        InstanceInfo instanceInfo = mock(InstanceInfo.class);
+        when(server.getInstanceInfo()).thenReturn(instanceInfo);
+        when(server.getHost()).thenReturn(HOST_NAME);
+        when(instanceInfo.getId()).thenReturn(HOST_NAME);
+        when(instanceInfo.getLastDirtyTimestamp()).thenReturn(1L);
+        when(instanceInfo.getMetadata()).thenReturn(ImmutableMap.<String, String>of());
+        when(instanceInfo.getHostName()).thenReturn(HOST_NAME);
+        when(instanceInfo.getPort()).thenReturn(PORT);
+        when(originalServerList.getUpdatedListOfServers()).thenReturn(Arrays.<Server>asList(server));
+        DomainExtractingServerList serverList = new DomainExtractingServerList(originalServerList, new DefaultClientConfigImpl(), true);
+
+        Server first = serverList.getUpdatedListOfServers().get(0);
+        assertSame("server was not cached", first, serverList.getUpdatedListOfServers().get(0));
+
+        when(instanceInfo.getLastDirtyTimestamp()).thenReturn(2L);
+        assertNotSame("server was not refreshed", first, serverList.getUpdatedListOfServers().get(0));
+    }
+
     protected DomainExtractingServerList getDomainExtractingServerList(DefaultClientConfigImpl config, boolean approximateZoneFromHostname) {
         DiscoveryEnabledServer server = mock(DiscoveryEnabledServer.class);
 		@SuppressWarnings("unchecked")
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.ribbon.eureka;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.client.discovery.DiscoveryHeartbeatEvent;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.client.config.CommonClientConfigKey;
+import com.netflix.client.config.IClientConfig;
+import com.netflix.discovery.DiscoveryClient;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.loadbalancer.ConfigurationBasedServerList;
+import com.netflix.loadbalancer.DynamicServerListLoadBalancer;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerList;
+import com.netflix.niws.loadbalancer.DiscoveryEnabledNIWSServerList;
+
+/**
+ * @author Dave Syer
+ */
+public class EurekaServerListUpdaterTests {
+
+	private SpringClientFactory clientFactory = mock(SpringClientFactory.class);
+
+	private DiscoveryClient discovery = mock(DiscoveryClient.class);
+
+	@SuppressWarnings("unchecked")
+	private DynamicServerListLoadBalancer<Server> loadBalancer = mock(DynamicServerListLoadBalancer.class);
+
+	private InstanceInfo instance = mock(InstanceInfo.class);
+
+	private IClientConfig config = mock(IClientConfig.class);
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private ServerList<Server> eurekaServerList = (ServerList) mock(DiscoveryEnabledNIWSServerList.class);
+
+	private EurekaServerListUpdater updater = new EurekaServerListUpdater(
+			this.clientFactory, this.discovery);
+
+	@Before
+	public void init() {
+		when(this.clientFactory.getClientNames()).thenReturn(
+				Collections.singleton("foo"));
+		when(this.clientFactory.getLoadBalancer("foo")).thenReturn(this.loadBalancer);
+		when(this.loadBalancer.getClientConfig()).thenReturn(this.config);
+		when(this.loadBalancer.getServerListImpl()).thenReturn(
+				new DomainExtractingServerList(this.eurekaServerList, this.config, false));
+		when(this.instance.getId()).thenReturn("foo1");
+		when(this.instance.getStatus()).thenReturn(InstanceStatus.UP);
+		when(this.instance.getLastDirtyTimestamp()).thenReturn(1L);
+		when(this.discovery.getInstancesByVipAddress("foo", false)).thenReturn(
+				Arrays.asList(this.instance));
+	}
+
+	@Test
+	public void stopsPollingAndUpdatesOnlyOnChange() {
+		this.updater.update();
+		this.updater.update();
+		verify(this.loadBalancer).stopServerListRefreshing();
+		verify(this.loadBalancer, times(1)).updateListOfServers();
+		when(this.instance.getLastDirtyTimestamp()).thenReturn(2L);
+		this.updater.update();
+		verify(this.loadBalancer, times(2)).updateListOfServers();
+		verify(this.loadBalancer).stopServerListRefreshing();
+	}
+
+	@Test
+	public void waitsForRegistryMergeAfterHeartbeat() throws Exception {
+		Applications applications = new Applications();
+		applications.setVersion(1L);
+		when(this.discovery.getApplications()).thenReturn(applications);
+		this.updater.update();
+		verify(this.loadBalancer, times(1)).updateListOfServers();
+		// The event is published when the registry is fetched, before it is merged
+		this.updater.onApplicationEvent(new DiscoveryHeartbeatEvent(this, 2L));
+		Thread.sleep(300);
+		verify(this.loadBalancer, times(1)).updateListOfServers();
+		when(this.instance.getLastDirtyTimestamp()).thenReturn(2L);
+		applications.setVersion(2L);
+		verify(this.loadBalancer, timeout(1000).times(2)).updateListOfServers();
+		this.updater.destroy();
+	}
+
+	@Test
+	public void usesConfiguredVipAddressesAndSecureFlag() {
+		when(this.config.resolveDeploymentContextbasedVipAddresses()).thenReturn(
+				"bar,baz");
+		when(this.config.getPropertyAsBoolean(CommonClientConfigKey.IsSecure, false))
+				.thenReturn(true);
+		this.updater.update();
+		verify(this.discovery).getInstancesByVipAddress("bar", true);
+		verify(this.discovery).getInstancesByVipAddress("baz", true);
+		verify(this.loadBalancer).stopServerListRefreshing();
+	}
+
+	@Test
+	public void leavesOtherServerListsPolling() {
+		when(this.loadBalancer.getServerListImpl()).thenReturn(
+				new DomainExtractingServerList(new ConfigurationBasedServerList(),
+						this.config, false));
+		this.updater.update();
+		verify(this.loadBalancer, never()).stopServerListRefreshing();
+		verify(this.loadBalancer, never()).updateListOfServers();
+	}
+
+}
@@ -64,4 +64,15 @@ public class ZonePreferenceServerListFilterTests {
 		assertEquals(1, result.size());
 	}
 
+	@Test
+	public void withZoneSetAndMatchesIgnoringCase() {
+		ZonePreferenceServerListFilter filter = new ZonePreferenceServerListFilter();
+		ReflectionTestUtils.setField(filter, "zone", "DSYER");
+		Server other = new Server("other", 8080);
+		other.setZone("dsyer");
+		List<Server> result = filter.getFilteredListOfServers(Arrays.asList(dsyer,
+				localhost, other));
+		assertEquals(Arrays.asList(dsyer, other), result);
+	}
+
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.feign.indexer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor that writes the names of all the <code>@FeignClient</code>
+ * interfaces in a project to <code>META-INF/feign.clients</code>, one binary class name
+ * per line. At startup <code>@FeignClientScan</code> reads the index files on the
+ * classpath instead of scanning the base packages, if there are any. Entries from an
+ * earlier (incremental) compilation are kept as long as their types still exist and are
+ * still annotated.
+ *
+ * @author Dave Syer
+ */
+@SupportedAnnotationTypes(FeignClientIndexer.FEIGN_CLIENT)
+public class FeignClientIndexer extends AbstractProcessor {
+
+	static final String FEIGN_CLIENT = "org.springframework.cloud.netflix.feign.FeignClient";
+
+	/**
+	 * The location of the index (the same as in <code>FeignClientScanRegistrar</code>).
+	 */
+	public static final String INDEX_LOCATION = "META-INF/feign.clients";
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final Set<String> clients = new TreeSet<String>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations,
+			RoundEnvironment roundEnv) {
+		for (TypeElement annotation : annotations) {
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() != ElementKind.INTERFACE) {
+					this.processingEnv.getMessager().printMessage(Kind.ERROR,
+							"@FeignClient can only be specified on an interface", element);
+					continue;
+				}
+				this.clients.add(this.processingEnv.getElementUtils()
+						.getBinaryName((TypeElement) element).toString());
+			}
+		}
+		if (roundEnv.processingOver() && !this.clients.isEmpty()) {
+			writeIndex();
+		}
+		// Other processors may be interested in the annotation too
+		return false;
+	}
+
+	private void writeIndex() {
+		Set<String> names = new TreeSet<String>(this.clients);
+		names.addAll(readPreviousIndex());
+		try {
+			FileObject file = this.processingEnv.getFiler().createResource(
+					StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+			Writer writer = new OutputStreamWriter(file.openOutputStream(), UTF_8);
+			try {
+				for (String name : names) {
+					writer.write(name);
+					writer.write("\n");
+				}
+			}
+			finally {
+				writer.close();
+			}
+		}
+		catch (IOException e) {
+			this.processingEnv.getMessager().printMessage(Kind.ERROR,
+					"Could not write " + INDEX_LOCATION + ": " + e);
+		}
+	}
+
+	private Set<String> readPreviousIndex() {
+		Set<String> names = new TreeSet<String>();
+		try {
+			FileObject file = this.processingEnv.getFiler().getResource(
+					StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+			BufferedReader reader = new BufferedReader(new InputStreamReader(
+					file.openInputStream(), UTF_8));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					line = line.trim();
+					if (line.length() > 0 && isStillClient(line)) {
+						names.add(line);
+					}
+				}
+			}
+			finally {
+				reader.close();
+			}
+		}
+		catch (IOException e) {
+			// No previous index
+		}
+		catch (IllegalArgumentException e) {
+			// No previous index
+		}
+		return names;
+	}
+
+	private boolean isStillClient(String name) {
+		TypeElement type = this.processingEnv.getElementUtils().getTypeElement(
+				name.replace('$', '.'));
+		if (type == null || type.getKind() != ElementKind.INTERFACE) {
+			return false;
+		}
+		for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+			if (FEIGN_CLIENT.equals(((TypeElement) annotation.getAnnotationType()
+					.asElement()).getQualifiedName().toString())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.netflix.feign.indexer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * @author Dave Syer
+ */
+public class FeignClientIndexerTests {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	private File sources;
+
+	private File classes;
+
+	@Before
+	public void init() throws Exception {
+		this.sources = this.temp.newFolder("src");
+		this.classes = this.temp.newFolder("classes");
+		source("org.springframework.cloud.netflix.feign.FeignClient",
+				"package org.springframework.cloud.netflix.feign;\n"
+						+ "public @interface FeignClient { String value(); }");
+	}
+
+	@Test
+	public void indexesInterfaces() throws Exception {
+		assertTrue(compile(
+				source("demo.StoreClient", "package demo;\n"
+						+ "@org.springframework.cloud.netflix.feign.FeignClient(\"stores\")\n"
+						+ "public interface StoreClient {}"),
+				source("demo.Clients", "package demo;\n" + "public class Clients {\n"
+						+ "@org.springframework.cloud.netflix.feign.FeignClient(\"a\")\n"
+						+ "public interface Nested {}\n" + "}"),
+				source("demo.Other", "package demo;\npublic interface Other {}")));
+		assertEquals(Arrays.asList("demo.Clients$Nested", "demo.StoreClient"), index());
+	}
+
+	@Test
+	public void keepsEntriesFromEarlierCompilation() throws Exception {
+		assertTrue(compile(source("demo.StoreClient", "package demo;\n"
+				+ "@org.springframework.cloud.netflix.feign.FeignClient(\"stores\")\n"
+				+ "public interface StoreClient {}")));
+		assertTrue(compile(source("demo.CustomerClient", "package demo;\n"
+				+ "@org.springframework.cloud.netflix.feign.FeignClient(\"customers\")\n"
+				+ "public interface CustomerClient {}")));
+		assertEquals(Arrays.asList("demo.CustomerClient", "demo.StoreClient"), index());
+	}
+
+	@Test
+	public void rejectsClasses() throws Exception {
+		assertFalse(compile(source("demo.StoreClient", "package demo;\n"
+				+ "@org.springframework.cloud.netflix.feign.FeignClient(\"stores\")\n"
+				+ "public class StoreClient {}")));
+	}
+
+	private File source(String name, String content) throws IOException {
+		File file = new File(this.sources, name.replace('.', '/') + ".java");
+		file.getParentFile().mkdirs();
+		FileCopyUtils.copy(content.getBytes(UTF_8), file);
+		return file;
+	}
+
+	private boolean compile(File... files) throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(null,
+				null, UTF_8);
+		try {
+			List<File> all = new ArrayList<File>(Arrays.asList(files));
+			all.add(new File(this.sources,
+					"org/springframework/cloud/netflix/feign/FeignClient.java"));
+			CompilationTask task = compiler.getTask(null, fileManager, null,
+					Arrays.asList("-d", this.classes.getAbsolutePath(), "-classpath",
+							this.classes.getAbsolutePath()), null,
+					fileManager.getJavaFileObjectsFromFiles(all));
+			task.setProcessors(Arrays.asList(new FeignClientIndexer()));
+			return task.call();
+		}
+		finally {
+			fileManager.close();
+		}
+	}
+
+	private List<String> index() throws IOException {
+		String content = new String(FileCopyUtils.copyToByteArray(new File(this.classes,
+				FeignClientIndexer.INDEX_LOCATION)), UTF_8);
+		return Arrays.asList(content.trim().split("\n"));
+	}
+
+}